@@ -0,0 +1,73 @@
+package com.timetracker.frontend.controller;
+
+import com.timetracker.frontend.model.TimeRecord;
+import com.timetracker.frontend.service.CursorService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures building the records response of one page, against the original
+ * per-record HashMap and ZoneId.of formatting. Run with "-prof gc" for allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RecordsResponseBenchmark {
+
+    private static final DateTimeFormatter ZONED_DATETIME_TO_STRING = DateTimeFormatter.ofPattern("yyyy-MM-dd - HH:mm");
+
+    @Param({"10", "100", "10000"})
+    private int pageSize;
+
+    @Param({"+02:00", "Europe/Rome"})
+    private String timezone;
+
+    private TimeTrackerController controller;
+
+    private List<TimeRecord> records;
+
+    @Setup
+    public void setUp() {
+        controller = new TimeTrackerController();
+        ReflectionTestUtils.setField(controller, "RECORDS_LENGTH", pageSize);
+        ReflectionTestUtils.setField(controller, "cursorService", new CursorService("benchmark"));
+
+        records = new ArrayList<>(pageSize);
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < pageSize; i++) {
+            records.add(new TimeRecord("user@example.com", start.plusHours(i), start.plusHours(i + 8)));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> createRecordsResponse() {
+        return controller.createRecordsResponse("user@example.com", timezone, 0, records);
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyRecordsResponse() {
+        boolean hasMore = records.size() == pageSize;
+        List<Map<String, String>> formattedRecords = records.stream().map(record -> {
+            Map<String, String> formattedRecord = new HashMap<>();
+            formattedRecord.put("email", record.getEmail());
+            formattedRecord.put("start", record.getStart().withZoneSameInstant(ZoneId.of(timezone)).format(ZONED_DATETIME_TO_STRING));
+            formattedRecord.put("end", record.getEnd().withZoneSameInstant(ZoneId.of(timezone)).format(ZONED_DATETIME_TO_STRING));
+            return formattedRecord;
+        }).collect(Collectors.toList());
+        Map<String, Object> response = new HashMap<>();
+        response.put("records", formattedRecords);
+        response.put("hasMore", hasMore);
+        return response;
+    }
+}
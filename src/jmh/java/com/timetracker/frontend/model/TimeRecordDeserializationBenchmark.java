@@ -0,0 +1,48 @@
+package com.timetracker.frontend.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deserializing a backend records response into TimeRecord objects, the
+ * way the REST template does, including the string constructor parsing both dates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TimeRecordDeserializationBenchmark {
+
+    @Param({"10", "100", "10000"})
+    private int records;
+
+    private ObjectMapper objectMapper;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            int day = 1 + i % 28;
+            builder.append(String.format(
+                    "{\"email\":\"user@example.com\",\"start\":\"2024-01-%02dT08:00:00.000+0000\",\"end\":\"2024-01-%02dT16:30:00.000+0000\"}",
+                    day, day));
+        }
+        json = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public TimeRecord[] readRecordsArray() throws IOException {
+        return objectMapper.readValue(json, TimeRecord[].class);
+    }
+}
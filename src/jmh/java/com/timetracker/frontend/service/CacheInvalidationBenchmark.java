@@ -0,0 +1,100 @@
+package com.timetracker.frontend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-email cache invalidation by scanning every key for the email prefix
+ * against the per-email index kept by {@link TimeTrackerService}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CacheInvalidationBenchmark {
+
+    // Number of cached pages of each email
+    private static final int PAGES_PER_EMAIL = 10;
+
+    private static final int PAGE_LENGTH = 10;
+
+    @Param({"10000", "100000"})
+    private int entries;
+
+    private final List<TimeRecord> page = List.of(
+            new TimeRecord("user@example.com", ZonedDateTime.now(), ZonedDateTime.now()));
+
+    private Cache<String, List<TimeRecord>> prefixCache;
+
+    private TimeTrackerService service;
+
+    private String email;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        prefixCache = Caffeine.newBuilder().maximumSize(entries).build();
+        service = new TimeTrackerService(new PageRestTemplate(page), new SimpleMeterRegistry(), new SyncTaskExecutor(),
+                RecordPageStore.disabled(), DataSize.ofBytes(entries * 1024L), DataSize.ofBytes(entries * 1024L),
+                Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofHours(1), new ExportExecutors(4), new SummaryExecutor(4));
+
+        for (int i = 0; i < entries / PAGES_PER_EMAIL; i++) {
+            populate("user" + i + "@example.com");
+        }
+        email = "user" + (entries / PAGES_PER_EMAIL / 2) + "@example.com";
+    }
+
+    @Setup(Level.Invocation)
+    public void repopulate() {
+        populate(email);
+    }
+
+    @Benchmark
+    public void prefixScan() {
+        prefixCache.asMap().keySet().removeIf(key -> key.startsWith(email));
+    }
+
+    @Benchmark
+    public void emailIndex() {
+        service.invalidateCacheForEmail(email);
+    }
+
+    private void populate(String email) {
+        for (int p = 0; p < PAGES_PER_EMAIL; p++) {
+            int offset = p * PAGE_LENGTH;
+            prefixCache.put(String.format("%s:%d:%d", email, offset, PAGE_LENGTH), page);
+            service.getRecordsByEmail(email, offset, PAGE_LENGTH);
+        }
+    }
+
+    /**
+     * Backend stand-in answering every GET with the same page.
+     */
+    private static class PageRestTemplate extends RestTemplate {
+        private final List<TimeRecord> records;
+
+        PageRestTemplate(List<TimeRecord> page) {
+            this.records = page;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(String url, HttpMethod method, RequestCallback requestCallback,
+                             ResponseExtractor<T> responseExtractor, Object... uriVariables) {
+            return (T) new ArrayList<>(records);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.timetracker.frontend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timetracker.frontend.model.TimeRecord;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures turning a backend records response into the list of records, through
+ * data binding into an array followed by the null-filtering copies fetchRecordsFromApi
+ * used to make, against the single-pass streaming reader.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RecordArrayReadBenchmark {
+
+    @Param({"100", "10000"})
+    private int records;
+
+    private ObjectMapper objectMapper;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        // Every hundredth element is null, as the backend may send
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < records; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            if (i % 100 == 99) {
+                builder.append("null");
+                continue;
+            }
+            int day = 1 + i % 28;
+            builder.append(String.format(
+                    "{\"email\":\"user@example.com\",\"start\":\"2024-01-%02dT08:00:00.000+0000\",\"end\":\"2024-01-%02dT16:30:00.000+0000\"}",
+                    day, day));
+        }
+        json = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<TimeRecord> dataBindingAndCopies() throws IOException {
+        TimeRecord[] array = objectMapper.readValue(json, TimeRecord[].class);
+        array = Arrays.stream(array).filter(Objects::nonNull).toArray(TimeRecord[]::new);
+        return Arrays.stream(array).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<TimeRecord> streamingReader() throws IOException {
+        return TimeRecordArrayReader.read(new ByteArrayInputStream(json));
+    }
+}
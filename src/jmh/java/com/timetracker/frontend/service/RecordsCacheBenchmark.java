@@ -0,0 +1,70 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cache key construction and a page lookup served from the cache of
+ * {@link TimeTrackerService}, the path of every repeated page view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RecordsCacheBenchmark {
+
+    private static final int EMAILS = 1000;
+
+    private static final int PAGE_LENGTH = 10;
+
+    private final String[] emails = new String[EMAILS];
+
+    private TimeTrackerService service;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        TimeRecord record = new TimeRecord("user@example.com", ZonedDateTime.now(), ZonedDateTime.now());
+        TimeRecord[] page = new TimeRecord[PAGE_LENGTH];
+        Arrays.fill(page, record);
+        service = new TimeTrackerService(new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T execute(String url, HttpMethod method, RequestCallback requestCallback,
+                                 ResponseExtractor<T> responseExtractor, Object... uriVariables) {
+                return (T) new ArrayList<>(Arrays.asList(page));
+            }
+        }, new SimpleMeterRegistry(), new SyncTaskExecutor(), RecordPageStore.disabled(), DataSize.ofBytes(EMAILS * 1024L),
+                DataSize.ofBytes(EMAILS * 1024L),
+                Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofHours(1), new ExportExecutors(4), new SummaryExecutor(4));
+
+        for (int i = 0; i < EMAILS; i++) {
+            emails[i] = "user" + i + "@example.com";
+            service.getRecordsByEmail(emails[i], 0, PAGE_LENGTH);
+        }
+    }
+
+    @Benchmark
+    public RecordsCacheKey constructKey() {
+        return new RecordsCacheKey(emails[next++ % EMAILS], 0, PAGE_LENGTH);
+    }
+
+    @Benchmark
+    public List<TimeRecord> cachedLookup() {
+        return service.getRecordsByEmail(emails[next++ % EMAILS], 0, PAGE_LENGTH);
+    }
+}
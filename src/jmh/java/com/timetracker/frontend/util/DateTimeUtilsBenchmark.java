@@ -0,0 +1,61 @@
+package com.timetracker.frontend.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the date-time formatting done for every displayed and every posted record,
+ * and the parsing done for every record read from the backend.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class DateTimeUtilsBenchmark {
+
+    /**
+     * Display timezone, only taken by the display formatting benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class Zone {
+        @Param({"+02:00", "Europe/Rome"})
+        private String timezone;
+    }
+
+    // The pattern parseStringToZonedDateTime falls back to, as the baseline of its fixed-layout path
+    private static final DateTimeFormatter BACKEND_PATTERN = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    private final ZonedDateTime dateTime = ZonedDateTime.of(2024, 7, 15, 8, 30, 0, 0, ZoneOffset.UTC);
+
+    private final StringBuilder builder = new StringBuilder(DateTimeUtils.DISPLAY_LENGTH);
+
+    @Benchmark
+    public String formatZonedDateTime(Zone zone) {
+        return DateTimeUtils.formatZonedDateTime(dateTime, zone.timezone);
+    }
+
+    @Benchmark
+    public StringBuilder appendZonedDateTime(Zone zone) {
+        builder.setLength(0);
+        DateTimeUtils.appendZonedDateTime(builder, dateTime, DateTimeUtils.resolveZoneId(zone.timezone));
+        return builder;
+    }
+
+    @Benchmark
+    public String formatForPostRequest() {
+        return DateTimeUtils.formatForPostRequest(dateTime);
+    }
+
+    @Benchmark
+    public ZonedDateTime parseStringToZonedDateTime() {
+        return DateTimeUtils.parseStringToZonedDateTime("2024-07-15T08:30:00.000+0000");
+    }
+
+    @Benchmark
+    public ZonedDateTime parseWithPatternFormatter() {
+        return ZonedDateTime.parse("2024-07-15T08:30:00.000+0000", BACKEND_PATTERN);
+    }
+}
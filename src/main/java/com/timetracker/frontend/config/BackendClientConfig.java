@@ -0,0 +1,165 @@
+package com.timetracker.frontend.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuration of the HTTP client used to reach the timetracker backend.
+ */
+@Configuration
+public class BackendClientConfig {
+
+    /**
+     * Creates the pooled HTTP client for the backend. Connections are kept alive and
+     * reused across requests, and every phase of a request is bounded: connecting,
+     * each read, and the whole exchange from leasing a connection to closing the response.
+     * @param maxTotal the maximum number of pooled connections
+     * @param maxPerRoute the maximum number of pooled connections to one backend host
+     * @param keepAlive how long an idle connection is kept in the pool
+     * @param connectTimeout the timeout for establishing a connection
+     * @param readTimeout the timeout for each read from the backend
+     * @param totalTimeout the timeout for the whole exchange, including waiting for a pooled connection
+     * @return the HTTP client, closed with the application context
+     */
+    @Bean
+    public CloseableHttpClient backendHttpClient(@Value("${timetracker.backend.pool.max-total:50}") int maxTotal,
+                                                 @Value("${timetracker.backend.pool.max-per-route:50}") int maxPerRoute,
+                                                 @Value("${timetracker.backend.pool.keep-alive:30s}") Duration keepAlive,
+                                                 @Value("${timetracker.backend.connect-timeout:2s}") Duration connectTimeout,
+                                                 @Value("${timetracker.backend.read-timeout:5s}") Duration readTimeout,
+                                                 @Value("${timetracker.backend.total-timeout:10s}") Duration totalTimeout) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.NEG_ONE_MILLISECOND)
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(totalTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .addExecInterceptorFirst("total-timeout", totalTimeout(totalTimeout))
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    /**
+     * Creates the REST template for the backend on top of the pooled HTTP client. It is
+     * built from Spring Boot's builder, so every call is timed as http.client.requests,
+     * tagged by URI template and outcome. A gauge tracks the number of backend requests in flight.
+     * @param builder the auto-configured REST template builder
+     * @param backendHttpClient the pooled HTTP client for the backend
+     * @param meterRegistry the registry the gauge is registered with
+     * @param backendUrl the URL of the backend service, which request paths are relative to
+     * @return the REST template for the backend
+     */
+    @Bean
+    public RestTemplate backendRestTemplate(RestTemplateBuilder builder, CloseableHttpClient backendHttpClient,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${timetracker.backend.url:http://timetracker-backend:8080}") String backendUrl) {
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder("timetracker.backend.requests.active", inFlight, AtomicInteger::get)
+                .description("Backend requests in flight")
+                .register(meterRegistry);
+
+        ClientHttpRequestInterceptor countInFlight = (request, body, execution) -> {
+            inFlight.incrementAndGet();
+            try {
+                return execution.execute(request, body);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+
+        return builder
+                .rootUri(backendUrl)
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(backendHttpClient))
+                .additionalInterceptors(countInFlight)
+                .build();
+    }
+
+    /**
+     * Creates an interceptor cancelling any exchange still running after the total timeout,
+     * which aborts a pending connection lease, connect or read. The deadline is cleared once
+     * the response is closed, after its body has been read.
+     * @param totalTimeout the timeout for the whole exchange
+     * @return the interceptor
+     */
+    private static ExecChainHandler totalTimeout(Duration totalTimeout) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("backend-total-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return totalTimeout(scheduler, totalTimeout.toMillis());
+    }
+
+    private static ExecChainHandler totalTimeout(ScheduledExecutorService scheduler, long timeoutMillis) {
+        return (request, scope, chain) -> {
+            if (!(scope.originalRequest instanceof Cancellable exchange)) {
+                return chain.proceed(request, scope);
+            }
+            ScheduledFuture<?> deadline = scheduler.schedule(exchange::cancel, timeoutMillis, TimeUnit.MILLISECONDS);
+            ClassicHttpResponse response;
+            try {
+                response = chain.proceed(request, scope);
+            } catch (IOException | HttpException | RuntimeException e) {
+                deadline.cancel(false);
+                throw e;
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                deadline.cancel(false);
+            } else {
+                response.setEntity(new HttpEntityWrapper(entity) {
+                    @Override
+                    public void close() throws IOException {
+                        deadline.cancel(false);
+                        super.close();
+                    }
+                });
+            }
+            return response;
+        };
+    }
+}
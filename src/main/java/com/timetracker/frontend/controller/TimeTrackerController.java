@@ -1,20 +1,61 @@
 package com.timetracker.frontend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timetracker.frontend.model.CompactTimeRecords;
+import com.timetracker.frontend.model.ImportResult;
+import com.timetracker.frontend.model.RecordPage;
+import com.timetracker.frontend.model.RecordSummary;
+import com.timetracker.frontend.model.RecordsCursor;
 import com.timetracker.frontend.model.TimeRecord;
+import com.timetracker.frontend.model.TimeRecordView;
+import com.timetracker.frontend.service.CursorService;
+import com.timetracker.frontend.service.ExportExecutors;
+import com.timetracker.frontend.service.RecordImportService;
 import com.timetracker.frontend.service.TimeTrackerService;
+import com.timetracker.frontend.service.WriteBehindService;
 import com.timetracker.frontend.util.DateTimeUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.concurrent.Callable;
 
 /**
  * Controller for managing time tracking operations.
@@ -23,6 +64,9 @@ import java.util.stream.Collectors;
 @RequestMapping("/timetracker")
 public class TimeTrackerController {
 
+    // Key of the interceptor turning an export timeout into an aborted response
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR = TimeTrackerController.class.getName() + ".exportTimeout";
+
     // Default number of records to fetch in one request
     @Value("${timetracker.length:20}")
     private int RECORDS_LENGTH;
@@ -31,6 +75,34 @@ public class TimeTrackerController {
     @Autowired
     private TimeTrackerService timeTrackerService;
 
+    // Service for signing the pagination cursors handed to clients
+    @Autowired
+    private CursorService cursorService;
+
+    // Service journaling new records and sending them to the backend in the background
+    @Autowired
+    private WriteBehindService writeBehindService;
+
+    // Service for importing records in bulk
+    @Autowired
+    private RecordImportService recordImportService;
+
+    // Number of records fetched from the backend per call while exporting
+    @Value("${timetracker.export.page-size:500}")
+    private int exportPageSize;
+
+    // Time an export may stream before it is cut off, instead of the MVC async request timeout
+    @Value("${timetracker.export.timeout:30m}")
+    private Duration exportTimeout;
+
+    // Pools streaming the exports, apart from the application task executor
+    @Autowired
+    private ExportExecutors exportExecutors;
+
+    // JSON mapper writing the exported records
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Handles GET requests to the root URL.
      * @return the name of the view for the homepage
@@ -51,31 +123,102 @@ public class TimeTrackerController {
 
     /**
      * Creates a response map with formatted records and information about pagination.
+     * @param email the email the records belong to
      * @param timezone the user's timezone for formatting dates
+     * @param offset the starting point of the records
      * @param records the list of time records
-     * @return a map containing formatted records and pagination info
+     * @return a map containing formatted records, pagination info and the cursor of the next page
+     * @throws DateTimeException if the timezone is invalid
      */
-    private Map<String, Object> createRecordsResponse(String timezone, List<TimeRecord> records) {
+    Map<String, Object> createRecordsResponse(String email, String timezone, int offset, List<TimeRecord> records) {
         // Determine if there are more records to fetch
         boolean hasMore = records.size() == RECORDS_LENGTH;
 
-        // Format records for the response
-        List<Map<String, String>> formattedRecords = records.stream().map(record -> {
-            Map<String, String> formattedRecord = new HashMap<>();
-            formattedRecord.put("email", record.getEmail());
-            formattedRecord.put("start", DateTimeUtils.formatZonedDateTime(record.getStart(), timezone));
-            formattedRecord.put("end", DateTimeUtils.formatZonedDateTime(record.getEnd(), timezone));
-            return formattedRecord;
-        }).collect(Collectors.toList());
+        // Format records for the response, resolving the zone once and reusing one builder
+        ZoneId zoneId = DateTimeUtils.resolveZoneId(timezone);
+        StringBuilder builder = new StringBuilder(DateTimeUtils.DISPLAY_LENGTH);
+        List<TimeRecordView> formattedRecords = new ArrayList<>(records.size());
+        if (records instanceof CompactTimeRecords compact) {
+            // Cached pages are formatted straight from their columns, without creating the records
+            for (int i = 0; i < compact.size(); i++) {
+                formattedRecords.add(new TimeRecordView(
+                        compact.getEmail(i),
+                        format(builder, compact.startEpochMilli(i), zoneId),
+                        format(builder, compact.endEpochMilli(i), zoneId)));
+            }
+        } else {
+            for (TimeRecord record : records) {
+                formattedRecords.add(new TimeRecordView(
+                        record.getEmail(),
+                        format(builder, record.getStart(), zoneId),
+                        format(builder, record.getEnd(), zoneId)));
+            }
+        }
 
         // Prepare response map
         Map<String, Object> response = new HashMap<>();
         response.put("records", formattedRecords);
         response.put("hasMore", hasMore);
+        if (hasMore) {
+            response.put("cursor", cursorService.encode(new RecordsCursor(email, timezone, offset + RECORDS_LENGTH)));
+        }
 
         return response;
     }
 
+    /**
+     * Computes the ETag of a page of records as it would be served. It is weak because
+     * the cursor in the response is signed with a key that may differ between instances.
+     * @param email the email the records belong to
+     * @param timezone the user's timezone for formatting dates
+     * @param offset the starting point of the records
+     * @param page the page of records
+     * @return the weak ETag of the response
+     */
+    private String recordsETag(String email, String timezone, int offset, RecordPage page) {
+        long hash = 31 * page.contentHash() + Objects.hash(email, timezone, offset, RECORDS_LENGTH, page.stale());
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Formats a date-time for display through a reused builder.
+     * @param builder the builder to reuse
+     * @param zonedDateTime the date-time to format
+     * @param zoneId the user's timezone
+     * @return the formatted date-time
+     */
+    private static String format(StringBuilder builder, ZonedDateTime zonedDateTime, ZoneId zoneId) {
+        builder.setLength(0);
+        DateTimeUtils.appendZonedDateTime(builder, zonedDateTime, zoneId);
+        return builder.toString();
+    }
+
+    /**
+     * Formats an instant for display through a reused builder.
+     * @param builder the builder to reuse
+     * @param epochMilli the instant as milliseconds since the epoch
+     * @param zoneId the user's timezone
+     * @return the formatted date-time
+     */
+    private static String format(StringBuilder builder, long epochMilli, ZoneId zoneId) {
+        builder.setLength(0);
+        DateTimeUtils.appendEpochMilli(builder, epochMilli, zoneId);
+        return builder.toString();
+    }
+
+    /**
+     * Warms the following pages in the background when the page just served is full,
+     * since the user is likely to click "Load more" next.
+     * @param email the email whose records are paged
+     * @param offset the starting point of the page just served
+     * @param records the records of the page just served
+     */
+    private void prefetchNextPages(String email, int offset, List<TimeRecord> records) {
+        if (records.size() == RECORDS_LENGTH) {
+            timeTrackerService.prefetchRecordsByEmail(email, offset, RECORDS_LENGTH);
+        }
+    }
+
     /**
      * Handles POST requests to fetch records based on email and timezone.
      * @param email the email to search records for
@@ -86,16 +229,28 @@ public class TimeTrackerController {
      */
     @PostMapping("/view-records")
     public String getRecords(@RequestParam String email, @RequestParam String timezone, Model model, HttpSession session) {
+        // Reject unknown timezones before storing or fetching anything
+        try {
+            DateTimeUtils.resolveZoneId(timezone);
+        } catch (DateTimeException e) {
+            model.addAttribute("errorMessage", "Invalid timezone: " + timezone);
+            return "viewRecords";
+        }
+
         // Store email and timezone in the session
         session.setAttribute("email", email);
         session.setAttribute("timezone", timezone);
         session.setAttribute("offset", 0);
 
-        // Fetch records from the service
-        List<TimeRecord> records = timeTrackerService.getRecordsByEmail(email, 0, RECORDS_LENGTH);
+        // Fetch records from the service, possibly the last known ones if the backend is down
+        RecordPage page = timeTrackerService.getRecordsPage(email, 0, RECORDS_LENGTH);
+        List<TimeRecord> records = page.records();
+        prefetchNextPages(email, 0, records);
 
         // Add records and pagination info to the model
-        model.addAttribute("records", createRecordsResponse(timezone, records));
+        Map<String, Object> response = createRecordsResponse(email, timezone, 0, records);
+        response.put("stale", page.stale());
+        model.addAttribute("records", response);
 
         // Display an error message if no records are found
         if (records.isEmpty()) {
@@ -105,32 +260,253 @@ public class TimeTrackerController {
     }
 
     /**
-     * Handles GET requests to fetch additional records for pagination.
-     * @param session the HTTP session to retrieve search parameters and offset
-     * @return a map containing additional records and pagination info
+     * Handles GET requests to fetch additional records for pagination. The next page is
+     * taken from the signed cursor when one is given, so any instance can serve it;
+     * otherwise the search parameters and offset stored in the session are used.
+     * A client sending the ETag of the page it holds is answered 304 without the page
+     * being formatted again.
+     * @param cursor the cursor returned with the previous page, if any
+     * @param request the HTTP request, whose session is used when no cursor is given
+     * @param webRequest the request and response, for answering conditional requests
+     * @return a map containing additional records and pagination info, or null when not modified
+     * @throws ResponseStatusException with 400 if the cursor is malformed or was not signed with our secret
      */
     @GetMapping("/api/records")
     @ResponseBody
-    public Map<String, Object> getMoreRecords(HttpSession session) {
-        // Retrieve stored email, timezone, and offset from the session
-        String email = (String) session.getAttribute("email");
-        String timezone = (String) session.getAttribute("timezone");
-        int offset = (int) session.getAttribute("offset");
+    public Map<String, Object> getMoreRecords(@RequestParam(required = false) String cursor, HttpServletRequest request,
+                                              ServletWebRequest webRequest) {
+        String email;
+        String timezone;
+        int offset;
+        if (cursor != null) {
+            // Everything needed for the next page travels in the cursor, which must be one we signed
+            RecordsCursor recordsCursor;
+            try {
+                recordsCursor = cursorService.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+            }
+            email = recordsCursor.email();
+            timezone = recordsCursor.timezone();
+            offset = recordsCursor.offset();
+        } else {
+            // Retrieve stored email, timezone, and offset from the session
+            HttpSession session = request.getSession(false);
+            if (session == null || session.getAttribute("offset") == null) {
+                throw new IllegalArgumentException("Email cannot be empty");
+            }
+            email = (String) session.getAttribute("email");
+            timezone = (String) session.getAttribute("timezone");
+            offset = (int) session.getAttribute("offset");
 
-        // Update offset for the next batch of records
-        offset += RECORDS_LENGTH;
-        session.setAttribute("offset", offset);
+            // Update offset for the next batch of records
+            offset += RECORDS_LENGTH;
+            session.setAttribute("offset", offset);
+        }
 
         // Validate email
         if (email == null || email.trim().isEmpty()) {
             throw new IllegalArgumentException("Email cannot be empty");
         }
 
-        // Fetch more records from the service
-        List<TimeRecord> records = timeTrackerService.getRecordsByEmail(email, offset, RECORDS_LENGTH);
+        // Fetch more records from the service, possibly the last known ones if the backend is down
+        RecordPage page = timeTrackerService.getRecordsPage(email, offset, RECORDS_LENGTH);
+        prefetchNextPages(email, offset, page.records());
+
+        // Let clients keep the page but revalidate it, and answer 304 if theirs is current
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (webRequest.checkNotModified(recordsETag(email, timezone, offset, page))) {
+            return null;
+        }
+
+        // Return formatted records, pagination info and whether they may be out of date
+        Map<String, Object> response = createRecordsResponse(email, timezone, offset, page.records());
+        response.put("stale", page.stale());
+        return response;
+    }
+
+    /**
+     * Returns the hours recorded by an email per day or per week, with days and weeks
+     * taken in the user's timezone, so clients need not page through every record.
+     * @param email the email whose records to summarise
+     * @param timezone the timezone the days and weeks are taken in
+     * @param period the length of a bucket, "day" or "week"
+     * @return the hours per bucket, or a bad request for an unknown timezone or period
+     */
+    @GetMapping("/api/records/summary")
+    @ResponseBody
+    public ResponseEntity<RecordSummary> summarizeRecords(@RequestParam String email,
+                                                          @RequestParam(defaultValue = "UTC") String timezone,
+                                                          @RequestParam(defaultValue = "day") String period) {
+        ZoneId zoneId;
+        try {
+            zoneId = DateTimeUtils.resolveZoneId(timezone);
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (email.trim().isEmpty() || !(period.equals("day") || period.equals("week"))) {
+            return ResponseEntity.badRequest().build();
+        }
+        ChronoUnit unit = period.equals("week") ? ChronoUnit.WEEKS : ChronoUnit.DAYS;
+        return ResponseEntity.ok(timeTrackerService.summarizeRecordsByEmail(email, zoneId, unit));
+    }
+
+    /**
+     * Streams every record of an email as NDJSON, one record per line, or as CSV with a
+     * header row. Records are written as their backend page arrives, while the next
+     * page is already being fetched, so the response starts at once and memory stays
+     * constant whatever the length of the history. The export streams on its own pool
+     * and under its own timeout; an export cut off by the timeout once its records have
+     * started is aborted, so that the client sees a broken download rather than a short one.
+     * @param email the email whose records to export
+     * @param timezone the timezone for formatting the records
+     * @param format the output format, "ndjson" or "csv"
+     * @param request the current request
+     * @return the streamed records, or a bad request for an unknown timezone or format
+     */
+    @GetMapping("/api/records/export")
+    public ResponseEntity<StreamingResponseBody> exportRecords(@RequestParam String email,
+                                                               @RequestParam(defaultValue = "UTC") String timezone,
+                                                               @RequestParam(defaultValue = "ndjson") String format,
+                                                               HttpServletRequest request) {
+        // Validate everything before the response is committed
+        ZoneId zoneId;
+        try {
+            zoneId = DateTimeUtils.resolveZoneId(timezone);
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (email.trim().isEmpty() || !(format.equals("ndjson") || format.equals("csv"))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setTaskExecutor(exportExecutors.streams());
+        asyncManager.getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        asyncManager.registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR, new CallableProcessingInterceptor() {
+            @Override
+            public <T> Object handleTimeout(NativeWebRequest webRequest, Callable<T> task) {
+                HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+                // Before the first flush the default 503 still applies; after it, a 200 is on the
+                // wire and only an error escaping the dispatch makes the container drop the connection
+                return response != null && response.isCommitted()
+                        ? new IOException("Export of " + email + " cut off after " + exportTimeout)
+                        : RESULT_NONE;
+            }
+        });
+
+        boolean csv = format.equals("csv");
+        StreamingResponseBody body = csv
+                ? out -> writeCsv(email, zoneId, out)
+                : out -> writeNdjson(email, zoneId, out);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"records." + format + "\"")
+                .body(body);
+    }
+
+    /**
+     * Answers an export refused because every export thread is busy.
+     * @param response the response, which already carries the headers of the export
+     * @return a service unavailable response asking the client to retry
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Void> exportRejected(HttpServletResponse response) {
+        response.reset();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+    }
+
+    /**
+     * Writes the records of an email as NDJSON, flushing after each page.
+     * @param email the email whose records to export
+     * @param zoneId the timezone for formatting the records
+     * @param out the response body
+     * @throws IOException if the response cannot be written
+     */
+    private void writeNdjson(String email, ZoneId zoneId, OutputStream out) throws IOException {
+        StringBuilder builder = new StringBuilder(DateTimeUtils.DISPLAY_LENGTH);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // Lines are separated by hand, the generator would put spaces between root values;
+            // the response stream itself is left to the container to close
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            timeTrackerService.exportRecordsByEmail(email, exportPageSize, records -> {
+                for (TimeRecord record : records) {
+                    generator.writeObject(new TimeRecordView(
+                            record.getEmail(),
+                            format(builder, record.getStart(), zoneId),
+                            format(builder, record.getEnd(), zoneId)));
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            });
+        }
+    }
+
+    /**
+     * Writes the records of an email as CSV with a header row, flushing after each page.
+     * @param email the email whose records to export
+     * @param zoneId the timezone for formatting the records
+     * @param out the response body
+     * @throws IOException if the response cannot be written
+     */
+    private void writeCsv(String email, ZoneId zoneId, OutputStream out) throws IOException {
+        StringBuilder builder = new StringBuilder(DateTimeUtils.DISPLAY_LENGTH);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("email,start,end\n");
+        timeTrackerService.exportRecordsByEmail(email, exportPageSize, records -> {
+            for (TimeRecord record : records) {
+                writeCsvField(writer, record.getEmail());
+                writer.write(',');
+                writer.write(format(builder, record.getStart(), zoneId));
+                writer.write(',');
+                writer.write(format(builder, record.getEnd(), zoneId));
+                writer.write('\n');
+            }
+            writer.flush();
+        });
+        writer.flush();
+    }
 
-        // Return formatted records and pagination info
-        return createRecordsResponse(timezone, records);
+    /**
+     * Writes a CSV field, quoting it when it contains a separator, quote or line break.
+     * @param writer the writer to write to
+     * @param value the field value
+     * @throws IOException if the field cannot be written
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Handles POST requests to import time records in bulk from an uploaded CSV file
+     * with the columns email, start, end and an optional timezone.
+     * @param file the uploaded CSV file
+     * @param timezone the timezone of rows that do not name one
+     * @return the counts, failed rows and throughput of the import, or a bad request for an unknown timezone
+     * @throws IOException if the upload cannot be read
+     */
+    @PostMapping("/api/records/import")
+    @ResponseBody
+    public ResponseEntity<ImportResult> importRecords(@RequestParam("file") MultipartFile file,
+                                                      @RequestParam(defaultValue = "UTC") String timezone) throws IOException {
+        try {
+            DateTimeUtils.resolveZoneId(timezone);
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(recordImportService.importRecords(reader, timezone));
+        }
     }
 
     /**
@@ -164,10 +540,15 @@ public class TimeTrackerController {
                 return "createRecord";
             }
 
-            // Create and save the new time record
+            // Create and save the new time record, or journal it to be saved in the background
             TimeRecord record = new TimeRecord(email, startZonedDateTime, endZonedDateTime);
-            timeTrackerService.createRecord(record);
-            model.addAttribute("successMessage", "Record created successfully");
+            if (writeBehindService.isEnabled()) {
+                writeBehindService.submit(record);
+                model.addAttribute("successMessage", "Record accepted, it will be saved shortly");
+            } else {
+                timeTrackerService.createRecord(record);
+                model.addAttribute("successMessage", "Record created successfully");
+            }
         } catch (Exception e) {
             // Handle errors and provide feedback
             model.addAttribute("errorMessage", "An error occurred: " + e.getMessage());
@@ -0,0 +1,310 @@
+package com.timetracker.frontend.model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The CompactTimeRecords class holds a page of time records in columns: the email once
+ * for the whole page, start and end as epoch milliseconds, and their zones as indexes into
+ * a zone table shared by all pages. It is a read-only list of time records, creating each
+ * record only when it is read; callers that only need the instants read the columns
+ * through {@link #startEpochMilli} and {@link #endEpochMilli} instead. Longer runs of
+ * records are assembled from pages with a {@link Builder} and cut into pages again with
+ * {@link #slice}, both copying columns without creating any record.
+ */
+public final class CompactTimeRecords extends AbstractList<TimeRecord> implements RandomAccess {
+
+    // Estimated heap taken by a time record with its two date-times, for pages that cannot be compacted
+    private static final int RECORD_WEIGHT = 256;
+
+    // Zones of all pages, a page stores the position of its zones in this table. The
+    // table is copied on every new zone, which only happens a handful of times.
+    private static volatile ZoneId[] zones = new ZoneId[0];
+    private static final Map<ZoneId, Short> ZONE_INDEXES = new ConcurrentHashMap<>();
+
+    // Email shared by every record of the page, or null when they differ
+    private final String email;
+
+    // Email of each record, only when they differ
+    private final String[] emails;
+
+    // Start and end of each record
+    private final long[] starts;
+    private final long[] ends;
+
+    // Zone of the start and end of each record, as positions in the zone table
+    private final short[] startZones;
+    private final short[] endZones;
+
+    private CompactTimeRecords(String email, String[] emails, long[] starts, long[] ends,
+                               short[] startZones, short[] endZones) {
+        this.email = email;
+        this.emails = emails;
+        this.starts = starts;
+        this.ends = ends;
+        this.startZones = startZones;
+        this.endZones = endZones;
+    }
+
+    /**
+     * Compacts a page of time records. Records that would not read back equal, those
+     * missing a date-time or with sub-millisecond precision, leave the page as it is.
+     *
+     * @param records the records to compact
+     * @return the compact page, or the given records if they cannot be compacted
+     */
+    public static List<TimeRecord> of(List<TimeRecord> records) {
+        if (records instanceof CompactTimeRecords) {
+            return records;
+        }
+        int size = records.size();
+        String email = size > 0 ? records.get(0).getEmail() : null;
+        String[] emails = null;
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        short[] startZones = new short[size];
+        short[] endZones = new short[size];
+        for (int i = 0; i < size; i++) {
+            TimeRecord record = records.get(i);
+            if (!isCompactable(record.getStart()) || !isCompactable(record.getEnd())) {
+                return records;
+            }
+            if (emails == null && !Objects.equals(email, record.getEmail())) {
+                emails = new String[size];
+                for (int j = 0; j < i; j++) {
+                    emails[j] = email;
+                }
+            }
+            if (emails != null) {
+                emails[i] = record.getEmail();
+            }
+            starts[i] = record.getStart().toInstant().toEpochMilli();
+            ends[i] = record.getEnd().toInstant().toEpochMilli();
+            startZones[i] = zoneIndex(record.getStart().getZone());
+            endZones[i] = zoneIndex(record.getEnd().getZone());
+            if (startZones[i] < 0 || endZones[i] < 0) {
+                return records;
+            }
+        }
+        return new CompactTimeRecords(emails == null ? email : null, emails, starts, ends, startZones, endZones);
+    }
+
+    /**
+     * Copies the records of the range [from, to) into a page of their own, which keeps
+     * nothing of this one alive.
+     *
+     * @param from the position of the first record, inclusive
+     * @param to the position of the last record, exclusive
+     * @return the compact page of the range
+     */
+    public CompactTimeRecords slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, size());
+        long[] sliceStarts = Arrays.copyOfRange(starts, from, to);
+        long[] sliceEnds = Arrays.copyOfRange(ends, from, to);
+        short[] sliceStartZones = Arrays.copyOfRange(startZones, from, to);
+        short[] sliceEndZones = Arrays.copyOfRange(endZones, from, to);
+        if (emails == null) {
+            return new CompactTimeRecords(email, null, sliceStarts, sliceEnds, sliceStartZones, sliceEndZones);
+        }
+        return ofColumns(Arrays.copyOfRange(emails, from, to), sliceStarts, sliceEnds, sliceStartZones, sliceEndZones);
+    }
+
+    /**
+     * Creates the record at the given position.
+     *
+     * @param index the position of the record
+     * @return a new time record equal to the one compacted
+     */
+    @Override
+    public TimeRecord get(int index) {
+        return new TimeRecord(getEmail(index),
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(starts[index]), zones[startZones[index]]),
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(ends[index]), zones[endZones[index]]));
+    }
+
+    @Override
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Gets the email of the record at the given position.
+     *
+     * @param index the position of the record
+     * @return the email of the employee
+     */
+    public String getEmail(int index) {
+        return emails != null ? emails[index] : email;
+    }
+
+    /**
+     * Gets the start of the record at the given position.
+     *
+     * @param index the position of the record
+     * @return the start time as milliseconds since the epoch
+     */
+    public long startEpochMilli(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Gets the end of the record at the given position.
+     *
+     * @param index the position of the record
+     * @return the end time as milliseconds since the epoch
+     */
+    public long endEpochMilli(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Estimates the heap taken by a list of records, compact or not, for weighing it in caches.
+     *
+     * @param records the records
+     * @return the approximate size in bytes
+     */
+    public static long weightOf(List<TimeRecord> records) {
+        return records instanceof CompactTimeRecords compact
+                ? compact.weight()
+                : (long) records.size() * RECORD_WEIGHT;
+    }
+
+    /**
+     * Estimates the heap taken by the page, for weighing it in caches.
+     *
+     * @return the approximate size in bytes
+     */
+    public long weight() {
+        // Object and array headers, then eight bytes per instant and two per zone
+        long weight = 48 + 4 * 16 + (long) size() * 20;
+        if (emails == null) {
+            return weight + (email != null ? 40 + email.length() : 0);
+        }
+        weight += 16 + (long) size() * 4;
+        for (int i = 0; i < emails.length; i++) {
+            // Repeated emails of a page are usually the same instance
+            if (emails[i] != null && (i == 0 || emails[i] != emails[i - 1])) {
+                weight += 40 + emails[i].length();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Creates a page from its columns, keeping a single email when every record has the same.
+     *
+     * @param emails the email of each record
+     * @param starts the start of each record
+     * @param ends the end of each record
+     * @param startZones the zone of each start
+     * @param endZones the zone of each end
+     * @return the compact page
+     */
+    private static CompactTimeRecords ofColumns(String[] emails, long[] starts, long[] ends,
+                                                short[] startZones, short[] endZones) {
+        for (int i = 1; i < emails.length; i++) {
+            if (!Objects.equals(emails[i], emails[0])) {
+                return new CompactTimeRecords(null, emails, starts, ends, startZones, endZones);
+            }
+        }
+        return new CompactTimeRecords(emails.length > 0 ? emails[0] : null, null, starts, ends, startZones, endZones);
+    }
+
+    private static boolean isCompactable(ZonedDateTime dateTime) {
+        return dateTime != null && dateTime.getNano() % 1_000_000 == 0;
+    }
+
+    /**
+     * Returns the position of a zone in the shared table, adding it when new.
+     *
+     * @param zoneId the zone
+     * @return the position, or -1 if the table is full
+     */
+    private static short zoneIndex(ZoneId zoneId) {
+        Short index = ZONE_INDEXES.get(zoneId);
+        if (index != null) {
+            return index;
+        }
+        synchronized (ZONE_INDEXES) {
+            index = ZONE_INDEXES.get(zoneId);
+            if (index == null) {
+                if (zones.length > Short.MAX_VALUE) {
+                    return -1;
+                }
+                index = (short) zones.length;
+                ZoneId[] grown = Arrays.copyOf(zones, zones.length + 1);
+                grown[index] = zoneId;
+                zones = grown;
+                ZONE_INDEXES.put(zoneId, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Assembles a compact page from compact pages laid out at positions of it, copying
+     * their columns. A page put later overwrites the positions it shares with earlier
+     * ones; every position must be covered by some page before the result is built,
+     * and a builder builds a single page.
+     */
+    public static final class Builder {
+
+        private final String[] emails;
+        private final long[] starts;
+        private final long[] ends;
+        private final short[] startZones;
+        private final short[] endZones;
+
+        /**
+         * Creates a builder for a page of the given size.
+         *
+         * @param size the number of records of the page
+         */
+        public Builder(int size) {
+            this.emails = new String[size];
+            this.starts = new long[size];
+            this.ends = new long[size];
+            this.startZones = new short[size];
+            this.endZones = new short[size];
+        }
+
+        /**
+         * Copies the records of a page to the given position.
+         *
+         * @param position the position of the first record of the page
+         * @param page the page
+         * @return this builder
+         */
+        public Builder put(int position, CompactTimeRecords page) {
+            int size = page.size();
+            Objects.checkFromIndexSize(position, size, starts.length);
+            if (page.emails != null) {
+                System.arraycopy(page.emails, 0, emails, position, size);
+            } else {
+                Arrays.fill(emails, position, position + size, page.email);
+            }
+            System.arraycopy(page.starts, 0, starts, position, size);
+            System.arraycopy(page.ends, 0, ends, position, size);
+            System.arraycopy(page.startZones, 0, startZones, position, size);
+            System.arraycopy(page.endZones, 0, endZones, position, size);
+            return this;
+        }
+
+        /**
+         * Builds the page from the records put so far.
+         *
+         * @return the compact page
+         */
+        public CompactTimeRecords build() {
+            return ofColumns(emails, starts, ends, startZones, endZones);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.timetracker.frontend.model;
+
+import java.util.List;
+
+/**
+ * The ImportResult record summarises a bulk import of time records: how many rows
+ * were read and created, which rows failed and why, and how fast the import ran.
+ *
+ * @param rows              the number of data rows read, excluding the header
+ * @param imported          the number of records created in the backend
+ * @param failed            the number of rows that could not be imported
+ * @param errors            the failed rows, in row order, up to a reporting limit
+ * @param elapsedMillis     the duration of the whole import in milliseconds
+ * @param recordsPerSecond  the number of records created per second
+ */
+public record ImportResult(long rows, long imported, long failed, List<RowError> errors,
+                           long elapsedMillis, double recordsPerSecond) {
+
+    /**
+     * A row that could not be imported.
+     *
+     * @param row     the line number of the row in the uploaded file, starting at 1
+     * @param message the reason the row was rejected
+     */
+    public record RowError(long row, String message) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.timetracker.frontend.model;
+
+import java.util.List;
+
+/**
+ * The RecordPage record is a page of time records together with whether it is
+ * stale, that is served from memory because the backend could not be reached.
+ *
+ * @param records     the records of the page
+ * @param stale       true if the page is the last one known rather than freshly loaded
+ * @param contentHash a hash of the records, the same for pages holding the same records
+ */
+public record RecordPage(List<TimeRecord> records, boolean stale, long contentHash) {
+}
@@ -0,0 +1,26 @@
+package com.timetracker.frontend.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The RecordSummary record holds the hours recorded by an email per day or per week,
+ * with days and weeks taken in the user's timezone.
+ *
+ * @param email      the email of the employee
+ * @param timezone   the timezone the days and weeks are taken in
+ * @param period     the length of a bucket, "day" or "week"
+ * @param buckets    the buckets with recorded time, in date order
+ * @param totalHours the hours recorded over all buckets
+ */
+public record RecordSummary(String email, String timezone, String period, List<Bucket> buckets, double totalHours) {
+
+    /**
+     * The hours recorded in one day or week.
+     *
+     * @param start the day, or the Monday starting the week
+     * @param hours the hours recorded
+     */
+    public record Bucket(LocalDate start, double hours) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.timetracker.frontend.model;
+
+/**
+ * The RecordsCursor record holds everything needed to serve the next page of a
+ * records search, so that any instance can serve it without session state.
+ *
+ * @param email    the email whose records are paged
+ * @param timezone the timezone used to format the records
+ * @param offset   the starting point of the next page
+ */
+public record RecordsCursor(String email, String timezone, int offset) {
+}
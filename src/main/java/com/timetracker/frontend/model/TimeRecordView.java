@@ -0,0 +1,12 @@
+package com.timetracker.frontend.model;
+
+/**
+ * The TimeRecordView record is an immutable, display-ready form of a time record,
+ * with the start and end times already formatted in the user's timezone.
+ *
+ * @param email the email of the employee
+ * @param start the formatted start time
+ * @param end   the formatted end time
+ */
+public record TimeRecordView(String email, String start, String end) {
+}
@@ -0,0 +1,110 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.RecordsCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Service for turning pagination cursors into opaque, signed tokens and back.
+ * A token is the URL-safe Base64 of the cursor fields followed by an HMAC-SHA256
+ * signature, so clients can hand it back but cannot alter it.
+ */
+@Service
+public class CursorService {
+
+    private static final Logger log = LoggerFactory.getLogger(CursorService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    // Separates the cursor fields in the signed payload; the email comes last as it may contain anything
+    private static final char SEPARATOR = '\n';
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // Key used to sign the tokens
+    private final SecretKeySpec key;
+
+    /**
+     * Constructor initializes the signing key. All instances behind a load balancer must
+     * share the secret; when it is empty a random per-instance key is used instead, and
+     * a cursor is then only accepted by the instance that issued it.
+     * @param secret the shared signing secret
+     */
+    public CursorService(@Value("${timetracker.cursor.secret:}") String secret) {
+        byte[] keyBytes;
+        if (secret.isEmpty()) {
+            log.warn("timetracker.cursor.secret is not set, signing cursors with a random key: behind a load balancer, "
+                    + "\"Load more\" fails with 400 whenever it reaches another instance. Set the same secret on all instances.");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /**
+     * Encodes a cursor into a signed token.
+     * @param cursor the cursor to encode
+     * @return the opaque token
+     */
+    public String encode(RecordsCursor cursor) {
+        if (cursor.timezone().indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalid timezone");
+        }
+        byte[] payload = (cursor.offset() + String.valueOf(SEPARATOR) + cursor.timezone() + SEPARATOR + cursor.email())
+                .getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Decodes a token back into a cursor after checking its signature.
+     * @param token the token to decode
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is malformed or its signature does not match
+     */
+    public RecordsCursor decode(String token) {
+        try {
+            int dot = token.indexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            String fields = new String(payload, StandardCharsets.UTF_8);
+            int offsetEnd = fields.indexOf(SEPARATOR);
+            int timezoneEnd = fields.indexOf(SEPARATOR, offsetEnd + 1);
+            int offset = Integer.parseInt(fields.substring(0, offsetEnd));
+            return new RecordsCursor(fields.substring(timezoneEnd + 1), fields.substring(offsetEnd + 1, timezoneEnd), offset);
+        } catch (IndexOutOfBoundsException e) {
+            // Bad Base64 and bad numbers already surface as IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign cursor", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.timetracker.frontend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Thread pools of the record export, kept apart from the application task executor.
+ * An export holds its streaming thread for as long as the download lasts, and waits
+ * on the read-ahead of its next page; on the shared executor, enough concurrent
+ * exports would take every thread and wait on read-aheads queued behind themselves,
+ * stalling prefetches, reloads and imports with them. Both pools are bounded and
+ * queue nothing: an export beyond the limit is refused, and a read-ahead beyond it
+ * is fetched on the streaming thread instead. Not declared as executor beans, which
+ * would replace the auto-configured application task executor.
+ */
+@Component
+public class ExportExecutors {
+
+    // Threads writing the exports to their clients, one per export
+    private final ThreadPoolTaskExecutor streams;
+
+    // Threads fetching the next page of each export while the current one is written
+    private final ThreadPoolTaskExecutor readAheads;
+
+    /**
+     * Constructor starts both pools.
+     * @param maxConcurrent the maximum number of exports streamed at once
+     */
+    public ExportExecutors(@Value("${timetracker.export.max-concurrent:16}") int maxConcurrent) {
+        this.streams = boundedPool("export-", maxConcurrent);
+        this.readAheads = boundedPool("export-read-ahead-", maxConcurrent);
+    }
+
+    /**
+     * Returns the pool streaming the exports.
+     * @return the executor to run an export's response body on
+     */
+    public AsyncTaskExecutor streams() {
+        return streams;
+    }
+
+    /**
+     * Returns the pool reading the next page of the exports ahead.
+     * @return the executor to fetch read-ahead pages on
+     */
+    public AsyncTaskExecutor readAheads() {
+        return readAheads;
+    }
+
+    /**
+     * Stops both pools, interrupting the exports still running.
+     */
+    @PreDestroy
+    public void shutdown() {
+        streams.shutdown();
+        readAheads.shutdown();
+    }
+
+    static ThreadPoolTaskExecutor boundedPool(String threadNamePrefix, int threads) {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(threads);
+        pool.setMaxPoolSize(threads);
+        pool.setQueueCapacity(0);
+        pool.setAllowCoreThreadTimeOut(true);
+        pool.setThreadNamePrefix(threadNamePrefix);
+        pool.setDaemon(true);
+        pool.initialize();
+        return pool;
+    }
+}
@@ -0,0 +1,214 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.ImportResult;
+import com.timetracker.frontend.model.TimeRecord;
+import com.timetracker.frontend.util.DateTimeUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service for importing time records in bulk from CSV, posting them to the backend
+ * with a bounded number of calls in flight.
+ */
+@Service
+public class RecordImportService {
+
+    // Maximum number of failed rows listed in a result, further failures are only counted
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Service posting the records and owning the cache
+    private final TimeTrackerService timeTrackerService;
+
+    // Executor running the backend posts
+    private final TaskExecutor taskExecutor;
+
+    // Maximum number of records posted to the backend at once
+    private final int parallelism;
+
+    /**
+     * Constructor for the import service.
+     * @param timeTrackerService the service posting the records
+     * @param taskExecutor the application task executor, running the backend posts
+     * @param parallelism the maximum number of records posted to the backend at once
+     */
+    public RecordImportService(TimeTrackerService timeTrackerService,
+                               @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+                               @Value("${timetracker.import.parallelism:8}") int parallelism) {
+        this.timeTrackerService = timeTrackerService;
+        this.taskExecutor = taskExecutor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Imports the records of a CSV stream with the columns email, start, end and an
+     * optional timezone, start and end being local date-times such as 2024-01-01T08:00.
+     * A header row is skipped. Rows are read one at a time and posted while the next
+     * ones are read; a row that cannot be parsed or posted is reported and skipped.
+     * The cached records of every imported email are invalidated once at the end.
+     * @param csv the CSV stream
+     * @param timezone the timezone of rows that do not name one
+     * @return the counts, failed rows and throughput of the import
+     * @throws IOException if the stream cannot be read
+     */
+    public ImportResult importRecords(Reader csv, String timezone) throws IOException {
+        long begin = System.nanoTime();
+        Semaphore permits = new Semaphore(parallelism);
+        Set<String> emails = new HashSet<>();
+        LongAdder imported = new LongAdder();
+        LongAdder failed = new LongAdder();
+        List<ImportResult.RowError> errors = new ArrayList<>();
+        long rows = 0;
+
+        BufferedReader reader = new BufferedReader(csv);
+        try {
+            String line;
+            for (long row = 1; (line = reader.readLine()) != null; row++) {
+                // Spreadsheet exports often start with a byte order mark, which would hide the header
+                if (row == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = parseCsvLine(line);
+                if (rows == 0 && fields.get(0).trim().equalsIgnoreCase("email")) {
+                    continue;
+                }
+                rows++;
+
+                TimeRecord record;
+                try {
+                    record = parseRecord(fields, timezone);
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    fail(errors, failed, row, e.getMessage());
+                    continue;
+                }
+                emails.add(record.getEmail());
+
+                // Wait for a free slot, so that at most parallelism posts are in flight
+                permits.acquireUninterruptibly();
+                long failedRow = row;
+                Runnable post = () -> {
+                    try {
+                        timeTrackerService.postRecord(record);
+                        imported.increment();
+                    } catch (RuntimeException e) {
+                        fail(errors, failed, failedRow, "Backend call failed: " + e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                };
+                try {
+                    taskExecutor.execute(post);
+                } catch (TaskRejectedException e) {
+                    post.run();
+                }
+            }
+        } finally {
+            // Let the last posts finish, then drop the cached pages of each email once
+            permits.acquireUninterruptibly(parallelism);
+            emails.forEach(timeTrackerService::invalidateCacheForEmail);
+        }
+
+        long elapsedNanos = System.nanoTime() - begin;
+        List<ImportResult.RowError> sortedErrors;
+        synchronized (errors) {
+            sortedErrors = new ArrayList<>(errors);
+        }
+        sortedErrors.sort(Comparator.comparingLong(ImportResult.RowError::row));
+        return new ImportResult(rows, imported.sum(), failed.sum(), sortedErrors,
+                elapsedNanos / 1_000_000, imported.sum() / Math.max(elapsedNanos / 1e9, 1e-9));
+    }
+
+    /**
+     * Builds a time record from the fields of a row, validated like the create record form.
+     * @param fields the fields of the row
+     * @param timezone the timezone used when the row does not name one
+     * @return the time record
+     * @throws IllegalArgumentException if the row is malformed or its date range is invalid
+     * @throws DateTimeException if a date-time or the timezone cannot be parsed
+     */
+    private static TimeRecord parseRecord(List<String> fields, String timezone) {
+        if (fields.size() < 3 || fields.size() > 4) {
+            throw new IllegalArgumentException("Expected email,start,end[,timezone] but found " + fields.size() + " fields");
+        }
+        String email = fields.get(0).trim();
+        if (email.isEmpty()) {
+            throw new IllegalArgumentException("Email cannot be empty");
+        }
+        String zone = fields.size() == 4 && !fields.get(3).isBlank() ? fields.get(3).trim() : timezone;
+        ZonedDateTime start = DateTimeUtils.parseAndConvertToZonedDateTime(fields.get(1).trim(), zone);
+        ZonedDateTime end = DateTimeUtils.parseAndConvertToZonedDateTime(fields.get(2).trim(), zone);
+        if (!DateTimeUtils.validateDateRange(start, end)) {
+            throw new IllegalArgumentException("Invalid date range: start date must be before end date and dates cannot be in the future.");
+        }
+        return new TimeRecord(email, start, end);
+    }
+
+    /**
+     * Records a failed row, listing it while the reporting limit allows.
+     * @param errors the listed failed rows
+     * @param failed the count of failed rows
+     * @param row the line number of the row
+     * @param message the reason the row failed
+     */
+    private static void fail(List<ImportResult.RowError> errors, LongAdder failed, long row, String message) {
+        failed.increment();
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportResult.RowError(row, message));
+            }
+        }
+    }
+
+    /**
+     * Splits a CSV line into its fields. Fields may be quoted, with quotes inside
+     * them doubled; a quoted field cannot span lines.
+     * @param line the line to split
+     * @return the fields of the line
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,309 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of records waiting to be sent to the backend. Each entry is framed
+ * by its length and a CRC32 of its content, so an entry torn by a crash is detected and
+ * cut off on the next start. The position up to which entries were acknowledged is
+ * kept in a checkpoint file beside the journal. Once every entry is acknowledged both
+ * files are truncated, and once the acknowledged prefix passes a threshold while the
+ * backend keeps up only in part, the entries left are moved to the start of the
+ * journal, so that it never grows far past the current backlog.
+ */
+class RecordJournal implements Closeable {
+
+    /**
+     * An entry read back from the journal.
+     *
+     * @param record     the journaled record
+     * @param appendedAt the time the entry was appended, in epoch milliseconds
+     * @param end        the journal position right after the entry
+     */
+    record Entry(TimeRecord record, long appendedAt, long end) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(RecordJournal.class);
+
+    // Length and CRC32 preceding the content of every entry
+    private static final int HEADER_BYTES = 8;
+
+    // Upper bound of an entry's content, larger lengths can only come from corruption
+    private static final int MAX_ENTRY_BYTES = 64 * 1024;
+
+    // Bytes moved at once while compacting
+    private static final int COMPACT_BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel journal;
+    private final FileChannel checkpoint;
+
+    // Acknowledged bytes at the start of the journal past which the rest is moved to the start
+    private final long compactThreshold;
+
+    // Position up to which entries have been sent, and position where the next entry goes
+    private long acknowledged;
+    private long written;
+
+    // Number of entries between the two positions
+    private long pending;
+
+    /**
+     * Opens the journal at the given path, creating it if needed, and recovers the
+     * entries appended but not yet acknowledged.
+     * @param path the journal file; the checkpoint is kept next to it with an ".ack" suffix
+     * @param compactThreshold the acknowledged bytes past which the journal is compacted
+     * @throws IOException if the files cannot be opened or read
+     */
+    RecordJournal(Path path, long compactThreshold) throws IOException {
+        this.compactThreshold = compactThreshold;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.journal = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = FileChannel.open(path.resolveSibling(path.getFileName() + ".ack"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+    }
+
+    /**
+     * Appends a record and forces it to disk before returning.
+     * @param record the record to journal
+     * @throws IOException if the entry cannot be written
+     */
+    synchronized void append(TimeRecord record) throws IOException {
+        byte[] content = encode(record, System.currentTimeMillis());
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + content.length);
+        buffer.putInt(content.length).putInt(crc(content, content.length)).put(content).flip();
+        long position = written;
+        while (buffer.hasRemaining()) {
+            position += journal.write(buffer, position);
+        }
+        journal.force(false);
+        written = position;
+        pending++;
+    }
+
+    /**
+     * Reads the oldest entries not acknowledged yet. Only the single draining thread reads.
+     * @param maxEntries the maximum number of entries to read
+     * @return the entries in append order, empty if all are acknowledged
+     * @throws IOException if the journal cannot be read
+     */
+    List<Entry> read(int maxEntries) throws IOException {
+        long position;
+        long limit;
+        synchronized (this) {
+            position = acknowledged;
+            limit = written;
+        }
+        List<Entry> entries = new ArrayList<>(Math.min(maxEntries, 64));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (entries.size() < maxEntries && position < limit) {
+            readFully(header.clear(), position);
+            int length = header.getInt(0);
+            ByteBuffer content = ByteBuffer.allocate(length);
+            readFully(content, position + HEADER_BYTES);
+            position += HEADER_BYTES + length;
+            entries.add(decode(content.array(), position));
+        }
+        return entries;
+    }
+
+    /**
+     * Marks every entry up to the given position as sent, truncating the journal when
+     * nothing is left to send and compacting it when the sent entries outweigh the rest.
+     * @param position the position right after the last sent entry
+     * @param count the number of entries sent
+     * @throws IOException if the checkpoint cannot be written
+     */
+    synchronized void acknowledge(long position, int count) throws IOException {
+        pending -= count;
+        if (position == written) {
+            // Everything was sent, start both files over; the journal goes first, a crash
+            // in between leaves a checkpoint past its end, which recovery clamps to nothing
+            journal.truncate(0);
+            journal.force(true);
+            writeCheckpoint(0);
+            acknowledged = 0;
+            written = 0;
+            pending = 0;
+        } else {
+            writeCheckpoint(position);
+            acknowledged = position;
+            if (position >= compactThreshold && written - position <= position) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Moves the entries not acknowledged yet to the start of the journal. They take no
+     * more room than the acknowledged ones, so the copy never overwrites what it still
+     * has to read. A crash while copying leaves the checkpoint pointing at the intact
+     * entries; once copied, the checkpoint records the compacted length until the
+     * journal is cut to it, and recovery finishes a compaction it finds half done.
+     * @throws IOException if the journal cannot be rewritten
+     */
+    private void compact() throws IOException {
+        long length = written - acknowledged;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, COMPACT_BUFFER_BYTES));
+        for (long copied = 0; copied < length; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), length - copied));
+            readFully(buffer, acknowledged + copied);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                copied += journal.write(buffer, copied);
+            }
+        }
+        journal.force(false);
+        writeCheckpoint(compactedMarker(length));
+        journal.truncate(length);
+        journal.force(true);
+        writeCheckpoint(0);
+        acknowledged = 0;
+        written = length;
+    }
+
+    /**
+     * Returns the number of entries appended but not acknowledged.
+     * @return the journal depth
+     */
+    synchronized long pending() {
+        return pending;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            journal.close();
+        } finally {
+            checkpoint.close();
+        }
+    }
+
+    /**
+     * Reads the checkpoint and scans the entries after it, cutting off a torn or corrupt tail.
+     * @throws IOException if the files cannot be read
+     */
+    private void recover() throws IOException {
+        long size = journal.size();
+        if (checkpoint.size() >= Long.BYTES) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            readFully(checkpoint, buffer, 0);
+            long position = buffer.getLong(0);
+            if (position < 0) {
+                // A compaction copied the entries left to the start but did not cut the journal yet
+                size = Math.min(compactedMarker(position), size);
+                journal.truncate(size);
+                journal.force(true);
+                writeCheckpoint(0);
+                position = 0;
+            }
+            acknowledged = Math.min(position, size);
+        }
+
+        long position = acknowledged;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            readFully(header.clear(), position);
+            int length = header.getInt(0);
+            if (length < 0 || length > MAX_ENTRY_BYTES || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer content = ByteBuffer.allocate(length);
+            readFully(content, position + HEADER_BYTES);
+            if (crc(content.array(), length) != header.getInt(Integer.BYTES)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+            pending++;
+        }
+        if (position < size) {
+            log.warn("Discarding {} bytes of incomplete journal entries after position {}", size - position, position);
+            journal.truncate(position);
+            journal.force(true);
+        }
+        written = position;
+    }
+
+    /**
+     * Converts the length of a compacted journal to the negative checkpoint recording it, and back.
+     * @param value the length, or the checkpoint
+     * @return the checkpoint, or the length
+     */
+    private static long compactedMarker(long value) {
+        return -value - 1;
+    }
+
+    private void writeCheckpoint(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, position);
+        while (buffer.hasRemaining()) {
+            checkpoint.write(buffer, buffer.position());
+        }
+        checkpoint.force(false);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        readFully(journal, buffer, position);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal at position " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static int crc(byte[] content, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(TimeRecord record, long appendedAt) {
+        byte[] email = record.getEmail().getBytes(StandardCharsets.UTF_8);
+        byte[] start = record.getStart().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] end = record.getEnd().toString().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Long.BYTES + 3 * Integer.BYTES + email.length + start.length + end.length)
+                .putLong(appendedAt)
+                .putInt(email.length).put(email)
+                .putInt(start.length).put(start)
+                .putInt(end.length).put(end)
+                .array();
+    }
+
+    private static Entry decode(byte[] content, long end) {
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        long appendedAt = buffer.getLong();
+        String email = readString(buffer);
+        ZonedDateTime start = ZonedDateTime.parse(readString(buffer));
+        ZonedDateTime endTime = ZonedDateTime.parse(readString(buffer));
+        return new Entry(new TimeRecord(email, start, endTime), appendedAt, end);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,373 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Second-tier store of record pages on local disk, so that a restarted instance starts
+ * with the pages it served before instead of sending every first request to the backend,
+ * and still has them to fall back on while the backend fails.
+ * Each page is one file in a directory per email, written in the background and replaced
+ * atomically. The oldest pages are deleted once the store outgrows its size limit, and
+ * invalidating an email deletes its whole directory.
+ */
+@Service
+public class RecordPageStore {
+
+    /**
+     * A page read back from the store.
+     *
+     * @param records  the records of the page
+     * @param storedAt the time the page file was written
+     */
+    record StoredPage(List<TimeRecord> records, Instant storedAt) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(RecordPageStore.class);
+
+    // Marks a page file, followed by the format version
+    private static final int MAGIC = 0x54545047;
+    private static final int VERSION = 1;
+
+    // Number of locks the emails are spread over
+    private static final int STRIPES = 64;
+
+    // Whether pages are stored at all
+    private final boolean enabled;
+
+    // Directory holding a subdirectory of page files per email
+    private final Path directory;
+
+    // Total size of the page files above which the oldest are deleted
+    private final long maxBytes;
+
+    // Executor writing the pages, off the request path
+    private final TaskExecutor taskExecutor;
+
+    // Page files in the order they were written, oldest first, with their sizes
+    private final LinkedHashMap<Path, Long> files = new LinkedHashMap<>();
+    private long totalBytes;
+
+    // Locks serialising the writes and invalidations of the emails of each stripe, and
+    // the number of invalidations per stripe, so a write started before an invalidation
+    // of its email is dropped instead of bringing back the invalidated page
+    private final Object[] locks = new Object[STRIPES];
+    private final long[] invalidations = new long[STRIPES];
+
+    /**
+     * Constructor for the page store.
+     * @param enabled whether pages are stored
+     * @param path the directory holding the page files
+     * @param maxSize the total size of page files kept
+     * @param taskExecutor the application task executor, writing the pages
+     * @param meterRegistry the registry the store size metrics are registered with
+     */
+    public RecordPageStore(@Value("${timetracker.cache.l2.enabled:false}") boolean enabled,
+                           @Value("${timetracker.cache.l2.path:data/pages}") String path,
+                           @Value("${timetracker.cache.l2.max-size:256MB}") DataSize maxSize,
+                           @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.directory = Path.of(path);
+        this.maxBytes = maxSize.toBytes();
+        this.taskExecutor = taskExecutor;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        if (enabled) {
+            Gauge.builder("timetracker.cache.l2.size", this, RecordPageStore::size)
+                    .description("Total size of the stored record pages")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Returns a store that stores nothing.
+     * @return the disabled store
+     */
+    static RecordPageStore disabled() {
+        return new RecordPageStore(false, "", DataSize.ofBytes(0), null, null);
+    }
+
+    /**
+     * Indexes the stored pages and reads the most recently written ones. Pages older
+     * than the maximum age are deleted rather than served.
+     * @param maxBytes the maximum total size of the page files read
+     * @param maxAge the age beyond which a stored page is no longer used
+     * @return the pages read with the time they were written, by key
+     */
+    Map<RecordsCacheKey, StoredPage> load(long maxBytes, Duration maxAge) {
+        Map<RecordsCacheKey, StoredPage> pages = new LinkedHashMap<>();
+        if (!enabled || !Files.isDirectory(directory)) {
+            return pages;
+        }
+
+        // Every page file with its write time, newest first
+        List<Map.Entry<Path, BasicFileAttributes>> stored = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory, 2)) {
+            for (Iterator<Path> it = walk.iterator(); it.hasNext(); ) {
+                Path file = it.next();
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    // Left over by a write cut short
+                    delete(file);
+                } else if (file.getFileName().toString().endsWith(".page")) {
+                    stored.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan the record page store at {}", directory, e);
+            return pages;
+        }
+        stored.sort(Comparator.comparing((Map.Entry<Path, BasicFileAttributes> entry) -> entry.getValue().lastModifiedTime()).reversed());
+
+        Instant oldest = Instant.now().minus(maxAge);
+        List<Map.Entry<Path, Long>> kept = new ArrayList<>();
+        long readBytes = 0;
+        for (Map.Entry<Path, BasicFileAttributes> entry : stored) {
+            Path file = entry.getKey();
+            if (entry.getValue().lastModifiedTime().toInstant().isBefore(oldest)) {
+                delete(file);
+                continue;
+            }
+            if (readBytes + entry.getValue().size() <= maxBytes) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    Map.Entry<RecordsCacheKey, List<TimeRecord>> page = decode(in);
+                    pages.put(page.getKey(), new StoredPage(page.getValue(), entry.getValue().lastModifiedTime().toInstant()));
+                    readBytes += entry.getValue().size();
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Deleting unreadable record page {}", file, e);
+                    delete(file);
+                    continue;
+                }
+            }
+            kept.add(Map.entry(file, entry.getValue().size()));
+        }
+
+        // Index oldest first, so the oldest are evicted first
+        synchronized (this) {
+            for (int i = kept.size() - 1; i >= 0; i--) {
+                track(kept.get(i).getKey(), kept.get(i).getValue());
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Returns the current invalidation stamp of an email, to be taken before its records
+     * are read from the backend and passed to {@link #put}.
+     * @param email the email
+     * @return the stamp
+     */
+    long stamp(String email) {
+        int stripe = stripe(email);
+        synchronized (locks[stripe]) {
+            return invalidations[stripe];
+        }
+    }
+
+    /**
+     * Stores a page in the background, unless its email is invalidated in the meantime.
+     * @param key the page
+     * @param records the records of the page
+     * @param stamp the invalidation stamp of the email taken before the records were read
+     */
+    void put(RecordsCacheKey key, List<TimeRecord> records, long stamp) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> write(key, records, stamp));
+        } catch (TaskRejectedException e) {
+            // The page is only missing from the next warm start
+        }
+    }
+
+    /**
+     * Deletes every stored page of an email.
+     * @param email the email whose pages to delete
+     */
+    void invalidate(String email) {
+        if (!enabled) {
+            return;
+        }
+        int stripe = stripe(email);
+        Path emailDirectory = directory.resolve(hash(email));
+        synchronized (locks[stripe]) {
+            invalidations[stripe]++;
+            if (!Files.isDirectory(emailDirectory)) {
+                return;
+            }
+            try (DirectoryStream<Path> pageFiles = Files.newDirectoryStream(emailDirectory)) {
+                for (Path file : pageFiles) {
+                    delete(file);
+                    synchronized (this) {
+                        untrack(file);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete the stored record pages of {}", email, e);
+            }
+            delete(emailDirectory);
+        }
+    }
+
+    /**
+     * Returns the total size of the stored pages.
+     * @return the size in bytes
+     */
+    synchronized long size() {
+        return totalBytes;
+    }
+
+    /**
+     * Writes a page to a temporary file and moves it in place, so readers never see a partial page.
+     * @param key the page
+     * @param records the records of the page
+     * @param stamp the invalidation stamp the page was read under
+     */
+    private void write(RecordsCacheKey key, List<TimeRecord> records, long stamp) {
+        byte[] bytes = encode(key, records);
+        int stripe = stripe(key.email());
+        Path emailDirectory = directory.resolve(hash(key.email()));
+        Path file = emailDirectory.resolve(key.offset() + "_" + key.length() + ".page");
+        synchronized (locks[stripe]) {
+            if (invalidations[stripe] != stamp) {
+                return;
+            }
+            try {
+                Files.createDirectories(emailDirectory);
+                Path temp = Files.createTempFile(emailDirectory, "page", ".tmp");
+                Files.write(temp, bytes);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("Failed to store record page {} of {}", file.getFileName(), key.email(), e);
+                return;
+            }
+            synchronized (this) {
+                track(file, bytes.length);
+            }
+        }
+    }
+
+    /**
+     * Indexes a written page as the newest, deleting the oldest pages while the store is too large.
+     * @param file the page file
+     * @param bytes its size
+     */
+    private void track(Path file, long bytes) {
+        untrack(file);
+        files.put(file, bytes);
+        totalBytes += bytes;
+        for (Iterator<Map.Entry<Path, Long>> oldest = files.entrySet().iterator();
+             totalBytes > maxBytes && oldest.hasNext(); ) {
+            Map.Entry<Path, Long> evicted = oldest.next();
+            oldest.remove();
+            totalBytes -= evicted.getValue();
+            delete(evicted.getKey());
+        }
+    }
+
+    private void untrack(Path file) {
+        Long previous = files.remove(file);
+        if (previous != null) {
+            totalBytes -= previous;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}", file, e);
+        }
+    }
+
+    private static int stripe(String email) {
+        return Math.floorMod(email.hashCode(), STRIPES);
+    }
+
+    /**
+     * Names the directory of an email after its SHA-256, keeping emails out of file names.
+     * @param email the email
+     * @return the directory name
+     */
+    private static String hash(String email) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(email.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] encode(RecordsCacheKey key, List<TimeRecord> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + records.size() * 96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(key.email());
+            out.writeInt(key.offset());
+            out.writeInt(key.length());
+            out.writeInt(records.size());
+            for (TimeRecord record : records) {
+                out.writeUTF(record.getEmail());
+                out.writeUTF(record.getStart().toString());
+                out.writeUTF(record.getEnd().toString());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map.Entry<RecordsCacheKey, List<TimeRecord>> decode(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a record page");
+        }
+        RecordsCacheKey key = new RecordsCacheKey(in.readUTF(), in.readInt(), in.readInt());
+        int count = in.readInt();
+        List<TimeRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new TimeRecord(in.readUTF(), ZonedDateTime.parse(in.readUTF()), ZonedDateTime.parse(in.readUTF())));
+        }
+        return Map.entry(key, records);
+    }
+}
@@ -0,0 +1,185 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.CompactTimeRecords;
+import com.timetracker.frontend.model.TimeRecord;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The records of one email fetched so far, kept as non-overlapping ranges of
+ * consecutive records. Ranges that touch or overlap are merged when added, so
+ * any window inside a range can be sliced out without calling the API again.
+ * Ranges are held in columns like cached pages, and windows are sliced from them
+ * as compact pages of their own, so neither holds a record object per record.
+ */
+class RecordSegments {
+
+    /**
+     * A range of record positions that is not held yet.
+     *
+     * @param offset the first missing position
+     * @param length the number of missing positions
+     */
+    record Gap(int offset, int length) {
+    }
+
+    // Fetched ranges by the position of their first record
+    private final TreeMap<Integer, List<TimeRecord>> segments = new TreeMap<>();
+
+    // Total number of records held over all ranges, and their estimated heap in bytes
+    private int size;
+    private long weight;
+
+    /**
+     * Returns the ranges of the window [offset, offset + length) that are not held.
+     *
+     * @param offset the first position of the window
+     * @param length the number of positions in the window
+     * @return the missing ranges in ascending order, empty if the window is fully held
+     */
+    synchronized List<Gap> missing(int offset, int length) {
+        List<Gap> gaps = new ArrayList<>();
+        int position = offset;
+        int end = offset + length;
+
+        // Start from the range containing the window start, if any
+        Map.Entry<Integer, List<TimeRecord>> floor = segments.floorEntry(offset);
+        Integer from = floor != null ? floor.getKey() : offset;
+        for (Map.Entry<Integer, List<TimeRecord>> segment : segments.tailMap(from, true).entrySet()) {
+            int start = segment.getKey();
+            if (start >= end) {
+                break;
+            }
+            if (start > position) {
+                gaps.add(new Gap(position, start - position));
+            }
+            position = Math.max(position, start + segment.getValue().size());
+        }
+        if (position < end) {
+            gaps.add(new Gap(position, end - position));
+        }
+        return gaps;
+    }
+
+    /**
+     * Adds records fetched from the given position, merging them with every
+     * range they touch or overlap. Records fetched later win over held ones.
+     * The merged range is assembled from the columns of the held ranges and the
+     * fetched records, unless some of them cannot be compacted.
+     *
+     * @param offset  the position of the first fetched record
+     * @param records the fetched records
+     */
+    synchronized void add(int offset, List<TimeRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<TimeRecord> fetched = CompactTimeRecords.of(records);
+        int start = offset;
+        int end = offset + records.size();
+
+        // Widen the new range over every held range that touches it
+        Map.Entry<Integer, List<TimeRecord>> floor = segments.floorEntry(offset);
+        Integer from = floor != null ? floor.getKey() : offset;
+        List<Map.Entry<Integer, List<TimeRecord>>> merged = new ArrayList<>();
+        for (Map.Entry<Integer, List<TimeRecord>> segment : segments.tailMap(from, true).entrySet()) {
+            int segmentStart = segment.getKey();
+            int segmentEnd = segmentStart + segment.getValue().size();
+            if (segmentStart > end) {
+                break;
+            }
+            if (segmentEnd < offset) {
+                continue;
+            }
+            merged.add(Map.entry(segmentStart, segment.getValue()));
+            start = Math.min(start, segmentStart);
+            end = Math.max(end, segmentEnd);
+        }
+
+        // Lay the held ranges out first, then the fetched records over them
+        for (Map.Entry<Integer, List<TimeRecord>> segment : merged) {
+            segments.remove(segment.getKey());
+            size -= segment.getValue().size();
+            weight -= CompactTimeRecords.weightOf(segment.getValue());
+        }
+        merged.add(Map.entry(offset, fetched));
+        List<TimeRecord> combined = merged.stream().allMatch(segment -> segment.getValue() instanceof CompactTimeRecords)
+                ? combineColumns(start, end, merged)
+                : combineRecords(start, end, merged);
+        segments.put(start, combined);
+        size += combined.size();
+        weight += CompactTimeRecords.weightOf(combined);
+    }
+
+    /**
+     * Returns the held records of the window [offset, offset + length), stopping
+     * at the first position that is not held.
+     *
+     * @param offset the first position of the window
+     * @param length the number of positions in the window
+     * @return the consecutive held records from the window start, possibly empty
+     */
+    synchronized List<TimeRecord> slice(int offset, int length) {
+        Map.Entry<Integer, List<TimeRecord>> floor = segments.floorEntry(offset);
+        if (floor == null) {
+            return List.of();
+        }
+        List<TimeRecord> segment = floor.getValue();
+        int from = offset - floor.getKey();
+        if (from >= segment.size()) {
+            return List.of();
+        }
+        int to = Math.min(segment.size(), from + length);
+        return segment instanceof CompactTimeRecords compact
+                ? compact.slice(from, to)
+                : new ArrayList<>(segment.subList(from, to));
+    }
+
+    /**
+     * Returns the total number of records held.
+     *
+     * @return the number of records over all ranges
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the heap taken by the records held, for weighing the segments in caches.
+     *
+     * @return the approximate size in bytes over all ranges
+     */
+    synchronized long weight() {
+        return weight;
+    }
+
+    private static List<TimeRecord> combineColumns(int start, int end, List<Map.Entry<Integer, List<TimeRecord>>> ranges) {
+        CompactTimeRecords.Builder builder = new CompactTimeRecords.Builder(end - start);
+        for (Map.Entry<Integer, List<TimeRecord>> range : ranges) {
+            builder.put(range.getKey() - start, (CompactTimeRecords) range.getValue());
+        }
+        return builder.build();
+    }
+
+    private static List<TimeRecord> combineRecords(int start, int end, List<Map.Entry<Integer, List<TimeRecord>>> ranges) {
+        List<TimeRecord> combined = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            combined.add(null);
+        }
+        for (Map.Entry<Integer, List<TimeRecord>> range : ranges) {
+            copy(range.getValue(), combined, range.getKey() - start);
+        }
+        return combined;
+    }
+
+    private static void copy(List<TimeRecord> source, List<TimeRecord> target, int position) {
+        Iterator<TimeRecord> records = source.iterator();
+        for (int i = position; records.hasNext(); i++) {
+            target.set(i, records.next());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Running totals of the time recorded by one email, per day in one timezone. Records
+ * are counted by their position in the email's history, so a record fetched again
+ * through an overlapping page is never counted twice, and the totals are complete
+ * once every position up to the end of the history has been counted. The end may
+ * move as records are added: a page reaching past it moves it, and an end seen too
+ * long ago can be forgotten, so that the next summary looks past it again. A record
+ * crossing midnight counts towards both days.
+ */
+class RecordTotals {
+
+    // Timezone the days are taken in
+    private final ZoneId zoneId;
+
+    // Seconds recorded per day
+    private final TreeMap<LocalDate, Long> secondsByDay = new TreeMap<>();
+
+    // Positions of the records counted so far
+    private final BitSet counted = new BitSet();
+
+    // Number of records of the email once a page ended short of its length, -1 until then,
+    // and the System.nanoTime() at which that end was last seen
+    private int size = -1;
+    private long endSeenAt;
+
+    /**
+     * Constructor for empty totals.
+     * @param zoneId the timezone the days are taken in
+     */
+    RecordTotals(ZoneId zoneId) {
+        this.zoneId = zoneId;
+    }
+
+    /**
+     * Counts the records of a fetched page that are not counted yet. A page holding fewer
+     * records than requested marks the end of the history.
+     * @param offset the position of the first record of the page
+     * @param length the number of records requested
+     * @param records the records fetched
+     */
+    void add(int offset, int length, List<TimeRecord> records) {
+        // Split the page into days outside the lock, pages are added concurrently
+        Map<LocalDate, Long> page = new HashMap<>();
+        for (TimeRecord record : records) {
+            addDays(page, record);
+        }
+
+        int end = offset + records.size();
+        synchronized (this) {
+            int firstCounted = counted.nextSetBit(offset);
+            if (firstCounted < 0 || firstCounted >= end) {
+                page.forEach((day, seconds) -> secondsByDay.merge(day, seconds, Long::sum));
+            } else {
+                // Part of the page was counted through another page, add the rest one by one
+                for (int i = 0; i < records.size(); i++) {
+                    if (!counted.get(offset + i)) {
+                        Map<LocalDate, Long> days = new HashMap<>();
+                        addDays(days, records.get(i));
+                        days.forEach((day, seconds) -> secondsByDay.merge(day, seconds, Long::sum));
+                    }
+                }
+            }
+            counted.set(offset, end);
+            if (records.isEmpty()) {
+                // An empty page fetched past the end says less than a short one before it
+                size = size < 0 ? end : Math.min(size, end);
+                endSeenAt = System.nanoTime();
+            } else if (records.size() < length) {
+                // A short page ends the history where it ends, past the known end if records were added since
+                size = end;
+                endSeenAt = System.nanoTime();
+            } else if (size >= 0 && end > size) {
+                // A full page past the known end, where the history ends is known no more
+                size = -1;
+            }
+        }
+    }
+
+    /**
+     * Forgets the end of the history if it was last seen before the given time, so that
+     * the totals are no longer complete and the records from the old end on are fetched.
+     * @param nanoTime the {@link System#nanoTime()} before which the end is forgotten
+     */
+    synchronized void forgetEndSeenBefore(long nanoTime) {
+        if (size >= 0 && endSeenAt - nanoTime < 0) {
+            size = -1;
+        }
+    }
+
+    /**
+     * Returns whether every record of the history has been counted.
+     * @return true once the end of the history was seen and every record before it counted
+     */
+    synchronized boolean isComplete() {
+        return size >= 0 && counted.nextClearBit(0) >= size;
+    }
+
+    /**
+     * Returns the first position at or after the given one whose record is not counted.
+     * @param from the position to start from
+     * @return the first position not counted, possibly past the end of the history
+     */
+    synchronized int nextMissing(int from) {
+        return counted.nextClearBit(from);
+    }
+
+    /**
+     * Returns whether a position lies past the end of the history.
+     * @param offset the position
+     * @return true if the end of the history was seen at or before the position
+     */
+    synchronized boolean isPastEnd(int offset) {
+        return size >= 0 && offset >= size;
+    }
+
+    /**
+     * Returns the seconds recorded per day.
+     * @return the totals by day, in date order
+     */
+    synchronized SortedMap<LocalDate, Long> byDay() {
+        return new TreeMap<>(secondsByDay);
+    }
+
+    /**
+     * Returns the seconds recorded per week, summed from the days.
+     * @return the totals by the Monday starting each week, in date order
+     */
+    synchronized SortedMap<LocalDate, Long> byWeek() {
+        SortedMap<LocalDate, Long> weeks = new TreeMap<>();
+        secondsByDay.forEach((day, seconds) ->
+                weeks.merge(day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), seconds, Long::sum));
+        return weeks;
+    }
+
+    /**
+     * Adds the duration of a record to the days it covers in the timezone.
+     * @param days the totals to add to
+     * @param record the record
+     */
+    private void addDays(Map<LocalDate, Long> days, TimeRecord record) {
+        ZonedDateTime from = record.getStart().withZoneSameInstant(zoneId);
+        ZonedDateTime end = record.getEnd().withZoneSameInstant(zoneId);
+        while (from.isBefore(end)) {
+            ZonedDateTime nextDay = from.toLocalDate().plusDays(1).atStartOfDay(zoneId);
+            ZonedDateTime to = nextDay.isBefore(end) ? nextDay : end;
+            days.merge(from.toLocalDate(), Duration.between(from, to).getSeconds(), Long::sum);
+            from = to;
+        }
+    }
+}
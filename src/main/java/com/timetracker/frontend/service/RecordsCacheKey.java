@@ -0,0 +1,12 @@
+package com.timetracker.frontend.service;
+
+/**
+ * Key of a cached page of time records: the records of one email starting at
+ * an offset and spanning a given length.
+ *
+ * @param email  the email the records belong to
+ * @param offset the starting point of the page
+ * @param length the number of records in the page
+ */
+record RecordsCacheKey(String email, int offset, int length) {
+}
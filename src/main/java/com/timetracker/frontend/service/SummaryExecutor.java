@@ -0,0 +1,45 @@
+package com.timetracker.frontend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Thread pool fetching the pages of the hour summaries, kept apart from the export pools
+ * and the application task executor, so that summaries and exports never take each
+ * other's threads. Bounded and without a queue like the export pools: a page beyond the
+ * limit is fetched on the summarising thread instead. Not declared as an executor bean,
+ * which would replace the auto-configured application task executor.
+ */
+@Component
+public class SummaryExecutor {
+
+    // Threads fetching summary pages, shared by every summary running
+    private final ThreadPoolTaskExecutor fetches;
+
+    /**
+     * Constructor starts the pool.
+     * @param maxThreads the maximum number of summary pages fetched at once over all summaries
+     */
+    public SummaryExecutor(@Value("${timetracker.summary.max-threads:16}") int maxThreads) {
+        this.fetches = ExportExecutors.boundedPool("summary-", maxThreads);
+    }
+
+    /**
+     * Returns the pool fetching summary pages.
+     * @return the executor to fetch summary pages on
+     */
+    public AsyncTaskExecutor fetches() {
+        return fetches;
+    }
+
+    /**
+     * Stops the pool.
+     */
+    @PreDestroy
+    public void shutdown() {
+        fetches.shutdown();
+    }
+}
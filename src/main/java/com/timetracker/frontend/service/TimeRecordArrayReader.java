@@ -0,0 +1,99 @@
+package com.timetracker.frontend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.timetracker.frontend.model.TimeRecord;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the array of time records the backend answers with, token by token, straight
+ * into a list. Null elements are skipped as they are met and unknown fields ignored,
+ * so the response is read once without an intermediate array or object tree.
+ */
+class TimeRecordArrayReader implements ResponseExtractor<List<TimeRecord>> {
+
+    // Factory of the streaming parsers, thread-safe and shared
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Reads the records from a backend response.
+     * @param response the response, whose status was already checked
+     * @return the records, empty for an empty or null body
+     * @throws RestClientException if the body is not an array of records
+     * @throws IOException if the body cannot be read
+     */
+    @Override
+    public List<TimeRecord> extractData(ClientHttpResponse response) throws IOException {
+        try (InputStream body = response.getBody()) {
+            return read(body);
+        } catch (JsonProcessingException | DateTimeException e) {
+            throw new RestClientException("Failed to read the records returned by the backend", e);
+        }
+    }
+
+    /**
+     * Reads an array of records from a JSON stream.
+     * @param json the JSON stream
+     * @return the records, without the null elements
+     * @throws IOException if the stream is not an array of records or cannot be read
+     */
+    static List<TimeRecord> read(InputStream json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            List<TimeRecord> records = new ArrayList<>();
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return records;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of records but found " + token);
+            }
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected a record but found " + token);
+                }
+                records.add(readRecord(parser));
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Reads the fields of one record, the parser being on its opening brace.
+     * @param parser the parser
+     * @return the record
+     * @throws IOException if the record cannot be read
+     */
+    private static TimeRecord readRecord(JsonParser parser) throws IOException {
+        String email = null;
+        String start = null;
+        String end = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "email" -> email = parser.getValueAsString();
+                case "start" -> start = parser.getValueAsString();
+                case "end" -> end = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        if (start == null || end == null) {
+            throw new JsonParseException(parser, "Expected a record with a start and an end");
+        }
+        return new TimeRecord(email, start, end);
+    }
+}
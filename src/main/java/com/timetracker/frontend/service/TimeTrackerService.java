@@ -1,20 +1,55 @@
 package com.timetracker.frontend.service;
 
+import com.timetracker.frontend.model.CompactTimeRecords;
+import com.timetracker.frontend.model.RecordPage;
+import com.timetracker.frontend.model.RecordSummary;
 import com.timetracker.frontend.model.TimeRecord;
 import com.timetracker.frontend.util.DateTimeUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service for managing time records, including fetching records from the API
@@ -23,85 +58,768 @@ import java.util.stream.Collectors;
 @Service
 public class TimeTrackerService {
 
-    // REST template for making HTTP requests
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Reader of the record arrays returned by the backend
+    private static final TimeRecordArrayReader RECORD_ARRAY_READER = new TimeRecordArrayReader();
 
-    // URL of the backend service, configurable via application properties
-    @Value("${timetracker.backend.url:http://timetracker-backend:8080}")
-    private String APIURL;
+    // Maximum number of emails whose time totals are kept
+    private static final int MAX_SUMMARIZED_EMAILS = 10_000;
 
-    // Cache to store records for a given email, offset, and length
-    private final Cache<String, List<TimeRecord>> cache;
+    // Maximum number of timezones whose totals are kept per email, further ones are summed for one summary only
+    private static final int MAX_SUMMARIZED_ZONES = 4;
+
+    // REST template for making HTTP requests, with paths relative to the backend URL
+    private final RestTemplate restTemplate;
+
+    // Cache to store records for a given email, offset, and length. Concurrent misses
+    // for the same key share a single in-flight load instead of each calling the API.
+    // Entries are futures so that a slow load never holds a lock shared with other keys.
+    // Pages read after the refresh window are served as they are and reloaded in the background.
+    // Pages are held in compact form and the cache is bounded by their estimated size in bytes.
+    private final AsyncLoadingCache<RecordsCacheKey, List<TimeRecord>> cache;
+
+    // Last page loaded for each key, kept longer than the cache so it can be served,
+    // marked stale, when the backend fails; shares the compact pages with the cache
+    private final Cache<RecordsCacheKey, List<TimeRecord>> lastKnownPages;
+
+    // Pages served stale because the backend failed
+    private final LongAdder stalePagesServed = new LongAdder();
+
+    // Pages kept on disk across restarts, behind the in-memory cache
+    private final RecordPageStore pageStore;
+
+    // Index of the cached pages of each email, so invalidation never scans the whole cache
+    private final ConcurrentMap<String, Set<RecordsCacheKey>> cachedKeysByEmail = new ConcurrentHashMap<>();
+
+    // Time, in System.nanoTime terms, at which each page preloaded from the store is due for
+    // a reload: the cache counts the refresh window from the preload, not from the fetch
+    private final ConcurrentMap<RecordsCacheKey, Long> preloadedRefreshDue = new ConcurrentHashMap<>();
+
+    // Records fetched so far for each email, merged into ranges so any window of them
+    // can be served from memory, weighed by their estimated heap
+    private final Cache<String, RecordSegments> segmentsByEmail;
+
+    // Running time totals of each email per timezone already summarised, updated by every
+    // page fetched for the email so a later summary only fetches the records not seen yet;
+    // replaced by empty totals when the email is invalidated
+    private final Cache<String, ConcurrentMap<ZoneId, RecordTotals>> totalsByEmail;
+
+    // Time after which complete totals look past their known end again for records added since
+    private final Duration totalsRefresh;
+
+    // Number of records fetched per backend call while summarising, and number of such calls run at once
+    @Value("${timetracker.summary.page-size:500}")
+    private int summaryPageSize;
+
+    @Value("${timetracker.summary.parallelism:4}")
+    private int summaryParallelism;
+
+    // Minimum number of records fetched from the backend when a window reaches past the held
+    // records, so one call fills several UI pages; 0 fetches exactly the missing records
+    @Value("${timetracker.backend.fetch-size:100}")
+    private int fetchSize;
+
+    // Number of following pages to warm in the background after serving a page, 0 disables prefetching
+    @Value("${timetracker.prefetch.depth:1}")
+    private int prefetchDepth;
+
+    // Maximum number of prefetches queued or running at once, further ones are dropped
+    @Value("${timetracker.prefetch.max-in-flight:16}")
+    private int prefetchMaxInFlight;
+
+    // Executor running the background prefetches; a thread pool, or virtual threads when enabled
+    private final TaskExecutor taskExecutor;
+
+    // Pool reading the next page of each export ahead, apart from the task executor
+    private final AsyncTaskExecutor exportReadAheadExecutor;
+
+    // Pool fetching the pages of the summaries, apart from the export read-aheads
+    private final AsyncTaskExecutor summaryExecutor;
+
+    // Number of prefetches queued or running
+    private final AtomicInteger prefetchesInFlight = new AtomicInteger();
+
+    // Pages warmed by a prefetch that no request has read yet
+    private final Set<RecordsCacheKey> prefetchedKeys = ConcurrentHashMap.newKeySet();
+
+    // Prefetched pages that were later read, and prefetched pages removed before anyone read them
+    private final LongAdder prefetchHits = new LongAdder();
+    private final LongAdder wastedPrefetches = new LongAdder();
 
     /**
-     * Constructor initializes the cache with expiration and size settings.
+     * Constructor initializes the caches with expiration and size settings and
+     * registers the cache and prefetch metrics.
+     * @param backendRestTemplate the REST template used to reach the backend
+     * @param meterRegistry the registry the metrics are registered with
+     * @param taskExecutor the application task executor, running background backend calls
+     * @param pageStore the on-disk store the cache is preloaded from and writes loaded pages to
+     * @param cacheMaximumWeight the estimated heap size of the pages kept in the cache
+     * @param segmentsMaximumWeight the maximum estimated heap taken by the per-email segments
+     * @param expireAfterAccess how long a page stays cached after it was last read
+     * @param refreshAfterWrite how old a page may get before a read reloads it in the background
+     * @param staleIfError how long a page may still be served, marked stale, when the backend fails
+     * @param exportExecutors the pools of the record export
+     * @param summaryExecutor the pool fetching the pages of the summaries
      */
-    public TimeTrackerService() {
+    public TimeTrackerService(RestTemplate backendRestTemplate, MeterRegistry meterRegistry,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+                              RecordPageStore pageStore,
+                              @Value("${timetracker.cache.maximum-weight:64MB}") DataSize cacheMaximumWeight,
+                              @Value("${timetracker.segments.maximum-weight:16MB}") DataSize segmentsMaximumWeight,
+                              @Value("${timetracker.cache.expire-after-access:10m}") Duration expireAfterAccess,
+                              @Value("${timetracker.cache.refresh-after-write:1m}") Duration refreshAfterWrite,
+                              @Value("${timetracker.cache.stale-if-error:1h}") Duration staleIfError,
+                              ExportExecutors exportExecutors,
+                              SummaryExecutor summaryExecutor) {
+        this.restTemplate = backendRestTemplate;
+        this.taskExecutor = taskExecutor;
+        this.exportReadAheadExecutor = exportExecutors.readAheads();
+        this.summaryExecutor = summaryExecutor.fetches();
+        this.pageStore = pageStore;
+        this.totalsRefresh = refreshAfterWrite;
         this.cache = Caffeine.newBuilder()
-                .expireAfterAccess(10, TimeUnit.MINUTES)  // Evict entries 10 minutes after last access
-                .maximumSize(1000)                        // Limit cache size to 1000 entries
+                .expireAfterAccess(expireAfterAccess)     // Evict entries 10 minutes after last access by default
+                .refreshAfterWrite(refreshAfterWrite)     // Reload pages read more than a minute after loading by default
+                .maximumWeight(cacheMaximumWeight.toBytes()) // Limit cache size, 64MB of pages by default
+                .weigher(TimeTrackerService::weigh)
+                .evictionListener(this::unindexEvicted)   // Keep the email index in step with evictions
+                .recordStats()
+                .buildAsync(this::reloadPage);
+        this.lastKnownPages = Caffeine.newBuilder()
+                .expireAfter(expireAfterWrite(staleIfError)) // Variable, so preloaded pages keep their age
+                .maximumWeight(cacheMaximumWeight.toBytes())
+                .weigher(TimeTrackerService::weigh)
+                .build();
+        this.segmentsByEmail = Caffeine.newBuilder()
+                .expireAfterAccess(expireAfterAccess)
+                .maximumWeight(segmentsMaximumWeight.toBytes())
+                .weigher((String email, RecordSegments segments) -> (int) Math.min(segments.weight(), Integer.MAX_VALUE))
+                .recordStats()
+                .build();
+        this.totalsByEmail = Caffeine.newBuilder()
+                .expireAfterAccess(expireAfterAccess)
+                .maximumSize(MAX_SUMMARIZED_EMAILS)
                 .build();
+
+        // Start warm with the pages stored before the last shutdown. Their age is taken
+        // from the file: only pages still inside the refresh window are served as fresh,
+        // until the first read past what is left of it, and the older ones are only fallen
+        // back on while the backend fails, for what is left of their stale-if-error window. A stored page takes more bytes on disk
+        // than compacted in memory, so reading up to the cache weight in files never
+        // overfills the cache.
+        Instant now = Instant.now();
+        long preloadedAt = System.nanoTime();
+        Policy.VarExpiration<RecordsCacheKey, List<TimeRecord>> lastKnownExpiry =
+                lastKnownPages.policy().expireVariably().orElseThrow();
+        pageStore.load(cacheMaximumWeight.toBytes(), staleIfError).forEach((key, stored) -> {
+            List<TimeRecord> records = CompactTimeRecords.of(stored.records());
+            Duration age = Duration.between(stored.storedAt(), now);
+            Duration staleLeft = staleIfError.minus(age);
+            if (staleLeft.isNegative() || staleLeft.isZero()) {
+                return;
+            }
+            lastKnownExpiry.put(key, records, staleLeft);
+            if (age.compareTo(refreshAfterWrite) < 0) {
+                cache.put(key, CompletableFuture.completedFuture(records));
+                preloadedRefreshDue.put(key, preloadedAt + refreshAfterWrite.minus(age).toNanos());
+                cachedKeysByEmail.computeIfAbsent(key.email(), email -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        });
+
+        // Hit, miss, eviction and load time metrics of both caches
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "records.pages");
+        CaffeineCacheMetrics.monitor(meterRegistry, segmentsByEmail, "records.segments");
+
+        FunctionCounter.builder("timetracker.cache.stale.served", stalePagesServed, LongAdder::sum)
+                .description("Pages served stale because the backend failed")
+                .register(meterRegistry);
+        FunctionCounter.builder("timetracker.prefetch.hits", prefetchHits, LongAdder::sum)
+                .description("Prefetched pages later read by a request")
+                .register(meterRegistry);
+        FunctionCounter.builder("timetracker.prefetch.wasted", wastedPrefetches, LongAdder::sum)
+                .description("Prefetched pages removed before any request read them")
+                .register(meterRegistry);
     }
 
     /**
      * Retrieves records by email, with pagination support. Checks the cache first
-     * before making an API call.
+     * before making an API call; concurrent callers missing on the same page wait
+     * for one shared API call.
      * @param email the email to search for
      * @param offset the starting point of the records to fetch
      * @param length the number of records to fetch
      * @return a list of time records
      */
     public List<TimeRecord> getRecordsByEmail(String email, int offset, int length) {
-        // Construct a unique cache key based on email, offset, and length
-        String cacheKey = String.format("%s:%d:%d", email, offset, length);
+        return getRecordsPage(email, offset, length).records();
+    }
+
+    /**
+     * Retrieves a page of records like {@link #getRecordsByEmail}, but when the backend
+     * fails and the page was loaded recently, returns that last known page marked as
+     * stale instead of failing.
+     * @param email the email to search for
+     * @param offset the starting point of the records to fetch
+     * @param length the number of records to fetch
+     * @return the page of records, stale if it could not be loaded from the backend
+     * @throws RestClientException if the backend fails and there is no last known page
+     */
+    public RecordPage getRecordsPage(String email, int offset, int length) {
+        RecordsCacheKey key = new RecordsCacheKey(email, offset, length);
+
+        // Load through the cache; an absent value means the API returned no records
+        List<TimeRecord> records;
+        try {
+            records = getPage(key);
+        } catch (RestClientException e) {
+            List<TimeRecord> lastKnown = lastKnownPages.getIfPresent(key);
+            if (lastKnown == null) {
+                throw e;
+            }
+            stalePagesServed.increment();
+            return new RecordPage(lastKnown, true, contentHash(lastKnown));
+        }
+        if (prefetchedKeys.remove(key)) {
+            prefetchHits.increment();
+        }
+        List<TimeRecord> page = records != null ? records : List.of();
+        return new RecordPage(page, false, contentHash(page));
+    }
 
-        // Check if records are present in the cache
-        List<TimeRecord> cachedRecords = cache.getIfPresent(cacheKey);
-        if (cachedRecords != null) {
-            return cachedRecords;
+    /**
+     * Hashes the emails and instants of a page, so that clients holding a page can be
+     * told it has not changed. Pages holding the same records hash the same on every
+     * instance; cached pages are hashed from their columns without creating the records.
+     * @param records the records of the page
+     * @return the hash of the page
+     */
+    static long contentHash(List<TimeRecord> records) {
+        long hash = records.size();
+        if (records instanceof CompactTimeRecords compact) {
+            for (int i = 0; i < compact.size(); i++) {
+                hash = mix(hash, Objects.hashCode(compact.getEmail(i)));
+                // Compact pages hold whole milliseconds only
+                hash = mix(mix(hash, compact.startEpochMilli(i)), 0);
+                hash = mix(mix(hash, compact.endEpochMilli(i)), 0);
+            }
         } else {
-            // Fetch records from API if not in cache
-            List<TimeRecord> records = fetchRecordsFromApi(email, offset, length);
-            // Cache the records if they are not empty
-            if (!records.isEmpty()){
-                cache.put(cacheKey, records);
+            for (TimeRecord record : records) {
+                hash = mix(hash, Objects.hashCode(record.getEmail()));
+                hash = mixInstant(hash, record.getStart());
+                hash = mixInstant(hash, record.getEnd());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes an instant into a hash as whole milliseconds and the nanoseconds beyond them,
+     * so a record hashes the same whether its page is compact or not.
+     * @param hash the hash so far
+     * @param dateTime the date-time, possibly null
+     * @return the new hash
+     */
+    private static long mixInstant(long hash, ZonedDateTime dateTime) {
+        if (dateTime == null) {
+            return mix(mix(hash, Long.MIN_VALUE), -1);
+        }
+        Instant instant = dateTime.toInstant();
+        return mix(mix(hash, instant.toEpochMilli()), instant.getNano() % 1_000_000);
+    }
+
+    private static long mix(long hash, long value) {
+        return Long.rotateLeft((hash ^ value) * 0x9E3779B97F4A7C15L, 29);
+    }
+
+    /**
+     * Warms the pages following the given one in the background, so that a later
+     * request for them is served from the cache. Pages already cached are skipped,
+     * and prefetches beyond the in-flight limit are dropped.
+     * @param email the email whose records are paged
+     * @param offset the starting point of the page just served
+     * @param length the number of records in a page
+     */
+    public void prefetchRecordsByEmail(String email, int offset, int length) {
+        for (int page = 1; page <= prefetchDepth; page++) {
+            RecordsCacheKey key = new RecordsCacheKey(email, offset + page * length, length);
+            if (cache.getIfPresent(key) != null) {
+                continue;
+            }
+            if (prefetchesInFlight.incrementAndGet() > prefetchMaxInFlight) {
+                prefetchesInFlight.decrementAndGet();
+                return;
+            }
+            try {
+                taskExecutor.execute(() -> prefetch(key));
+            } catch (TaskRejectedException e) {
+                prefetchesInFlight.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads a page into the cache on behalf of a later request.
+     * @param key the page to load
+     */
+    private void prefetch(RecordsCacheKey key) {
+        try {
+            // Mark the page before loading, a request joining the in-flight load is a hit too;
+            // a page already cached or held in the segments is sliced without a backend call,
+            // and would have been served as cheaply without the prefetch, so it is no hit
+            RecordSegments segments = segmentsByEmail.getIfPresent(key.email());
+            if (cache.getIfPresent(key) == null
+                    && (segments == null || !segments.missing(key.offset(), key.length()).isEmpty())) {
+                prefetchedKeys.add(key);
+            }
+            if (getPage(key) == null) {
+                prefetchedKeys.remove(key);
+            }
+        } catch (Exception e) {
+            prefetchedKeys.remove(key);
+        } finally {
+            prefetchesInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of prefetched pages that were later read by a request.
+     * @return the prefetch hit count
+     */
+    public long getPrefetchHits() {
+        return prefetchHits.sum();
+    }
+
+    /**
+     * Returns the number of prefetched pages removed from the cache before any request read them.
+     * @return the wasted prefetch count
+     */
+    public long getWastedPrefetches() {
+        return wastedPrefetches.sum();
+    }
+
+    /**
+     * Receives the pages of an export in order, as soon as each one arrives.
+     */
+    @FunctionalInterface
+    public interface PageConsumer {
+
+        /**
+         * Handles the next page of records.
+         * @param records the records of the page, never empty
+         * @throws IOException if the page cannot be written out
+         */
+        void accept(List<TimeRecord> records) throws IOException;
+    }
+
+    /**
+     * Passes every record of an email to the consumer, page by page. While one page is
+     * consumed the next is already being fetched, and at most these two pages are held,
+     * so memory stays constant however long the history is. The pages bypass the cache,
+     * an export would otherwise flush the pages users are browsing.
+     * @param email the email whose records to export
+     * @param pageSize the number of records fetched per backend call
+     * @param consumer the consumer of the pages
+     * @return the number of records exported
+     * @throws IOException if the consumer fails, the remaining pages are then not fetched
+     */
+    public long exportRecordsByEmail(String email, int pageSize, PageConsumer consumer) throws IOException {
+        long exported = 0;
+        int offset = 0;
+        Map<ZoneId, RecordTotals> totals = totalsByEmail.getIfPresent(email);
+        CompletableFuture<List<TimeRecord>> next = CompletableFuture.completedFuture(fetchRecordsFromApi(email, 0, pageSize));
+        try {
+            while (true) {
+                List<TimeRecord> records = join(next);
+                countFetched(totals, offset, pageSize, records);
+                if (records.isEmpty()) {
+                    return exported;
+                }
+
+                // A full page may be followed by more, start fetching it before consuming this one
+                offset += records.size();
+                next = records.size() < pageSize
+                        ? CompletableFuture.completedFuture(List.of())
+                        : fetchAhead(email, offset, pageSize);
+                consumer.accept(records);
+                exported += records.size();
             }
-            return records;
+        } finally {
+            next.cancel(false);
         }
     }
 
     /**
-     * Fetches records from the backend API.
+     * Starts fetching the next page of an export in the background, or fetches it right
+     * away when every read-ahead thread is busy. The read-ahead never runs on the task
+     * executor: exports streamed on it would otherwise wait on read-aheads queued behind them.
      * @param email the email to search for
      * @param offset the starting point of the records to fetch
      * @param length the number of records to fetch
-     * @return a list of time records
+     * @return the page being fetched
      */
-    private List<TimeRecord> fetchRecordsFromApi(String email, int offset, int length) {
-        // Construct the URL for the API request
-        String url = String.format("%s/records?email=%s&offset=%d&length=%d", APIURL, email, offset, length);
+    private CompletableFuture<List<TimeRecord>> fetchAhead(String email, int offset, int length) {
+        try {
+            return CompletableFuture.supplyAsync(() -> fetchRecordsFromApi(email, offset, length), exportReadAheadExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(fetchRecordsFromApi(email, offset, length));
+        }
+    }
+
+    /**
+     * Waits for a future, rethrowing the runtime exception or error it failed with.
+     * @param future the future to wait for
+     * @param <T> the type of the result
+     * @return the result of the future
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a page from the cache, loading it on the calling thread on a miss. Callers
+     * missing on the same page while it loads wait for that load instead of starting their own.
+     * @param key the page to return
+     * @return the records, or null if there are none
+     */
+    private List<TimeRecord> getPage(RecordsCacheKey key) {
+        CompletableFuture<List<TimeRecord>> loading = new CompletableFuture<>();
+        CompletableFuture<List<TimeRecord>> page = cache.get(key, (k, executor) -> loading);
+        if (page == loading) {
+            // This caller installed the future, so it performs the load; a failed or
+            // empty load leaves nothing behind in the cache
+            try {
+                loading.complete(loadRecords(key));
+            } catch (RuntimeException | Error e) {
+                // Whatever the failure, the future must complete: the cache never expires a
+                // future still loading, and every later caller for the page would wait on it
+                loading.completeExceptionally(e);
+            }
+        } else {
+            refreshIfPreloadedPastDue(key);
+        }
+        return join(page);
+    }
+
+    /**
+     * Reloads a page preloaded from the store in the background once it reaches the end of
+     * its refresh window counted from when it was stored, which the cache alone would only
+     * reload a whole window after the preload. Readers keep getting the page meanwhile.
+     * @param key the page being read
+     */
+    private void refreshIfPreloadedPastDue(RecordsCacheKey key) {
+        Long due = preloadedRefreshDue.get(key);
+        if (due != null && System.nanoTime() - due >= 0 && preloadedRefreshDue.remove(key, due)) {
+            cache.synchronous().refresh(key);
+        }
+    }
+
+    /**
+     * Loads the records for a cache key and indexes the key under its email. The key is
+     * indexed before the fetch, so that an invalidation of the email while the page is
+     * fetched also drops the page still loading, which would otherwise stay cached as
+     * fresh with the records read before the change.
+     * @param key the page to load
+     * @return the records, or null if there are none so that nothing is cached
+     */
+    private List<TimeRecord> loadRecords(RecordsCacheKey key) {
+        long stamp = pageStore.stamp(key.email());
+        Set<RecordsCacheKey> indexed = cachedKeysByEmail.computeIfAbsent(key.email(), email -> ConcurrentHashMap.newKeySet());
+        indexed.add(key);
+        List<TimeRecord> records;
+        try {
+            records = readRecords(key.email(), key.offset(), key.length());
+        } catch (RuntimeException | Error e) {
+            indexed.remove(key);
+            throw e;
+        }
+
+        // Only cache the records if they are not empty
+        if (records.isEmpty()) {
+            indexed.remove(key);
+            return null;
+        }
+        List<TimeRecord> page = CompactTimeRecords.of(records);
+
+        // A page read before an invalidation of its email is handed to its reader only
+        if (cachedKeysByEmail.get(key.email()) == indexed) {
+            lastKnownPages.put(key, page);
+            pageStore.put(key, page, stamp);
+        }
+        return page;
+    }
+
+    /**
+     * Reloads a cached page in the background once it is older than the refresh window.
+     * The page is fetched from the API rather than sliced from the segments, which are
+     * as old as the page, and the fresh records replace the held ones in the segments,
+     * unless the email was invalidated while they were fetched: the segments taken
+     * before the fetch are only updated while they are still the email's.
+     * While the reload runs, and if it fails, readers keep getting the cached page.
+     * @param key the page to reload
+     * @param executor the cache's executor, unused as reloads run on the task executor
+     * @return the reloaded records, null if there are none so that the page is dropped
+     */
+    private CompletableFuture<List<TimeRecord>> reloadPage(RecordsCacheKey key, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long stamp = pageStore.stamp(key.email());
+                RecordSegments segments = segmentsByEmail.get(key.email(), email -> new RecordSegments());
+                Map<ZoneId, RecordTotals> totals = totalsByEmail.getIfPresent(key.email());
+                List<TimeRecord> records = fetchRecordsFromApi(key.email(), key.offset(), key.length());
+                countFetched(totals, key.offset(), key.length(), records);
+                if (records.isEmpty()) {
+                    return null;
+                }
+                // Adding under the mapping reweighs the segments and keeps an invalidation out meanwhile
+                segmentsByEmail.asMap().computeIfPresent(key.email(), (email, held) -> {
+                    if (held == segments) {
+                        held.add(key.offset(), records);
+                    }
+                    return held;
+                });
+                List<TimeRecord> page = CompactTimeRecords.of(records);
+                lastKnownPages.put(key, page);
+                pageStore.put(key, page, stamp);
+                return page;
+            }, taskExecutor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Returns an expiry removing entries a fixed time after they are written, as
+     * expireAfterWrite does, while allowing entries put with a shorter time of their own.
+     * @param duration the time an entry is kept after it is written
+     * @return the expiry
+     */
+    private static <K, V> Expiry<K, V> expireAfterWrite(Duration duration) {
+        long nanos = duration.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, V value, long currentTime) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Estimates the heap taken by a cached page, in bytes.
+     * @param key the page
+     * @param records the records of the page
+     * @return the estimated size of the page
+     */
+    private static int weigh(RecordsCacheKey key, List<TimeRecord> records) {
+        return (int) Math.min(CompactTimeRecords.weightOf(records), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes a page evicted for size or expiry from the email index.
+     * @param key the evicted page
+     * @param records the evicted records
+     * @param cause the reason for the eviction
+     */
+    private void unindexEvicted(RecordsCacheKey key, List<TimeRecord> records, RemovalCause cause) {
+        discardPrefetched(key);
+        cachedKeysByEmail.computeIfPresent(key.email(), (email, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Reads a window of records of an email from its segments, fetching from the API
+     * only the parts of the window that are not held yet. The gap ending the window is
+     * widened to the backend fetch size, so the records of the following windows are
+     * fetched with it; windows past the last record come back short as before.
+     * @param email the email to search for
+     * @param offset the starting point of the records to read
+     * @param length the number of records to read
+     * @return the records of the window, shorter than length past the last record
+     */
+    private List<TimeRecord> readRecords(String email, int offset, int length) {
+        RecordSegments segments = segmentsByEmail.get(email, e -> new RecordSegments());
+        Map<ZoneId, RecordTotals> totals = totalsByEmail.getIfPresent(email);
+        List<RecordSegments.Gap> gaps = segments.missing(offset, length);
+        for (RecordSegments.Gap gap : gaps) {
+            // Gaps before the end of the window stop at held records, only the last one reads ahead
+            int fetchLength = gap.offset() + gap.length() == offset + length
+                    ? Math.max(gap.length(), fetchSize)
+                    : gap.length();
+            List<TimeRecord> fetched = fetchRecordsFromApi(email, gap.offset(), fetchLength);
+            segments.add(gap.offset(), fetched);
+            countFetched(totals, gap.offset(), fetchLength, fetched);
+        }
+        if (!gaps.isEmpty()) {
+            // Reweigh the segments now that they hold more records
+            segmentsByEmail.asMap().computeIfPresent(email, (e, held) -> held);
+        }
+        return segments.slice(offset, length);
+    }
+
+    /**
+     * Sums the hours recorded by an email per day or per week in a timezone. Totals kept
+     * from earlier summaries and from the pages fetched since are reused, so only the
+     * records not counted yet are fetched, several pages at once. Totals complete for
+     * longer than the refresh window are checked again past their end, for records
+     * added by other instances; totals are kept for a few timezones per email only.
+     * @param email the email whose records to summarise
+     * @param zoneId the timezone the days and weeks are taken in
+     * @param period {@link ChronoUnit#DAYS} or {@link ChronoUnit#WEEKS}
+     * @return the hours per day or per week, weeks starting on Monday
+     * @throws RestClientException if the backend fails
+     */
+    public RecordSummary summarizeRecordsByEmail(String email, ZoneId zoneId, ChronoUnit period) {
+        if (period != ChronoUnit.DAYS && period != ChronoUnit.WEEKS) {
+            throw new IllegalArgumentException("Unsupported summary period: " + period);
+        }
+        ConcurrentMap<ZoneId, RecordTotals> zones = totalsByEmail.get(email, e -> new ConcurrentHashMap<>());
+        RecordTotals totals = zones.get(zoneId);
+        if (totals == null) {
+            RecordTotals created = new RecordTotals(zoneId);
+            RecordTotals held = zones.size() < MAX_SUMMARIZED_ZONES ? zones.putIfAbsent(zoneId, created) : null;
+            totals = held != null ? held : created;
+        }
+        totals.forgetEndSeenBefore(System.nanoTime() - totalsRefresh.toNanos());
+        completeTotals(email, totals);
+
+        SortedMap<LocalDate, Long> seconds = period == ChronoUnit.WEEKS ? totals.byWeek() : totals.byDay();
+        List<RecordSummary.Bucket> buckets = new ArrayList<>(seconds.size());
+        long totalSeconds = 0;
+        for (Map.Entry<LocalDate, Long> bucket : seconds.entrySet()) {
+            buckets.add(new RecordSummary.Bucket(bucket.getKey(), hours(bucket.getValue())));
+            totalSeconds += bucket.getValue();
+        }
+        return new RecordSummary(email, zoneId.getId(), period == ChronoUnit.WEEKS ? "week" : "day",
+                buckets, hours(totalSeconds));
+    }
+
+    /**
+     * Fetches the records of an email not counted in the totals yet, in waves of parallel
+     * backend calls, until the end of the history is counted.
+     * @param email the email whose records to count
+     * @param totals the totals to complete
+     */
+    private void completeTotals(String email, RecordTotals totals) {
+        int pageSize = Math.max(1, summaryPageSize);
+        int parallelism = Math.max(1, summaryParallelism);
+        int position = 0;
+        while (!totals.isComplete()) {
+            // Fetch from the first records not counted yet, skipping those counted through other pages
+            List<CompletableFuture<Void>> wave = new ArrayList<>(parallelism);
+            for (int offset = totals.nextMissing(position); wave.size() < parallelism && !totals.isPastEnd(offset);
+                 offset = totals.nextMissing(position)) {
+                int from = offset;
+                wave.add(fetchSummaryPage(email, from, pageSize).thenAccept(records -> totals.add(from, pageSize, records)));
+                position = from + pageSize;
+            }
+            if (wave.isEmpty()) {
+                return;
+            }
+            try {
+                wave.forEach(TimeTrackerService::join);
+            } finally {
+                wave.forEach(future -> future.cancel(false));
+            }
+        }
+    }
 
-        // Send GET request and receive response as an array of TimeRecord
-        TimeRecord[] array = restTemplate.getForObject(url, TimeRecord[].class);
+    /**
+     * Starts fetching a page of a summary on the summary pool, or fetches it right away
+     * when every summary thread is busy.
+     * @param email the email to search for
+     * @param offset the starting point of the records to fetch
+     * @param length the number of records to fetch
+     * @return the page being fetched
+     */
+    private CompletableFuture<List<TimeRecord>> fetchSummaryPage(String email, int offset, int length) {
+        try {
+            return CompletableFuture.supplyAsync(() -> fetchRecordsFromApi(email, offset, length), summaryExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(fetchRecordsFromApi(email, offset, length));
+        }
+    }
 
-        // Return an empty list if the response is null
-        if (array == null) {
-            return List.of();
+    /**
+     * Counts a page fetched from the backend in the totals kept for its email. The totals
+     * are those taken before the fetch: when the email was invalidated in the meantime,
+     * they are no longer the email's and the page, possibly missing the new record, is
+     * counted in nothing that is still read.
+     * @param totals the totals of the email taken before the page was fetched, or null
+     * @param offset the position of the first record of the page
+     * @param length the number of records requested
+     * @param records the records fetched
+     */
+    private static void countFetched(Map<ZoneId, RecordTotals> totals, int offset, int length, List<TimeRecord> records) {
+        if (totals != null) {
+            totals.values().forEach(zoneTotals -> zoneTotals.add(offset, length, records));
         }
+    }
+
+    private static double hours(long seconds) {
+        return Math.round(seconds / 36.0) / 100.0;
+    }
 
-        // Remove null elements from the array and convert to list
-        array = Arrays.stream(array).filter(Objects::nonNull).toArray(TimeRecord[]::new);
+    /**
+     * Fetches records from the backend API, reading the response as it streams in.
+     * @param email the email to search for
+     * @param offset the starting point of the records to fetch
+     * @param length the number of records to fetch
+     * @return a list of time records
+     */
+    private List<TimeRecord> fetchRecordsFromApi(String email, int offset, int length) {
+        // Send GET request and read the array of TimeRecord in one pass, dropping null elements;
+        // the URI template keeps the email out of the request metrics and encodes it in the query
+        List<TimeRecord> records = restTemplate.execute(
+                "/records?email={email}&offset={offset}&length={length}", HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                RECORD_ARRAY_READER, email, offset, length);
 
-        return Arrays.stream(array).collect(Collectors.toList());
+        // Return an empty list if there is no response
+        return records != null ? records : List.of();
     }
 
     /**
      * Creates a new time record by sending a POST request to the backend API.
      * @param record the time record to create
+     * @throws org.springframework.web.client.RestClientException if the backend call fails, so that
+     *         the caller never reports a record as created when it was not
      */
     public void createRecord(TimeRecord record) {
-        // Construct the URL for the API request
-        String url = APIURL + "/records";
+        postRecord(record);
+
+        // Invalidate cache entries related to this email
+        invalidateCacheForEmail(record.getEmail());
+    }
+
+    /**
+     * Sends a time record to the backend API, leaving the cache untouched.
+     * @param record the time record to create
+     * @throws org.springframework.web.client.RestClientException if the backend call fails
+     */
+    void postRecord(TimeRecord record) {
+        // The API path, relative to the backend URL
+        String url = "/records";
 
         // Prepare the request body as form data
         MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
@@ -109,24 +827,42 @@ public class TimeTrackerService {
         formData.add("start", DateTimeUtils.formatForPostRequest(record.getStart()));
         formData.add("end", DateTimeUtils.formatForPostRequest(record.getEnd()));
 
-        try {
-            // Send POST request with form data
-            restTemplate.postForObject(url, formData, String.class);
-
-            // Invalidate cache entries related to this email
-            invalidateCacheForEmail(record.getEmail());
-        } catch (Exception e) {
-            // Print stack trace for any errors during the request
-            e.printStackTrace();
-        }
+        // Send POST request with form data
+        restTemplate.postForObject(url, formData, String.class);
     }
 
     /**
      * Invalidates all cache entries for the given email.
      * @param email the email for which to invalidate cache entries
      */
-    private void invalidateCacheForEmail(String email) {
-        // Remove all cache entries where the key starts with the given email
-        cache.asMap().keySet().removeIf(key -> key.startsWith(email));
+    void invalidateCacheForEmail(String email) {
+        // Remove only the pages indexed under exactly this email, in memory and on disk
+        segmentsByEmail.invalidate(email);
+        pageStore.invalidate(email);
+
+        // Start the totals over for the timezones already summarised, to be filled again
+        // by the pages fetched from now on
+        totalsByEmail.asMap().computeIfPresent(email, (e, totals) -> {
+            ConcurrentMap<ZoneId, RecordTotals> emptied = new ConcurrentHashMap<>();
+            totals.keySet().forEach(zoneId -> emptied.put(zoneId, new RecordTotals(zoneId)));
+            return emptied;
+        });
+        Set<RecordsCacheKey> keys = cachedKeysByEmail.remove(email);
+        if (keys != null) {
+            cache.synchronous().invalidateAll(keys);
+            keys.forEach(preloadedRefreshDue::remove);
+            keys.forEach(this::discardPrefetched);
+        }
     }
+
+    /**
+     * Counts a prefetched page leaving the cache unread as a wasted prefetch.
+     * @param key the page leaving the cache
+     */
+    private void discardPrefetched(RecordsCacheKey key) {
+        if (prefetchedKeys.remove(key)) {
+            wastedPrefetches.increment();
+        }
+    }
+
 }
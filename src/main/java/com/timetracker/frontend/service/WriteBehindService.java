@@ -0,0 +1,265 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Service accepting new time records into a local journal and sending them to the
+ * backend in the background, so that creating a record neither waits for the backend
+ * nor is lost while the backend is slow or down. Records are delivered at least once:
+ * one sent just before a crash, but not yet acknowledged, is sent again on restart.
+ */
+@Service
+public class WriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindService.class);
+
+    // Service sending the records and owning the cache
+    private final TimeTrackerService timeTrackerService;
+
+    // Registry the journal metrics are registered with
+    private final MeterRegistry meterRegistry;
+
+    // Whether new records are journaled instead of sent while the user waits
+    private final boolean enabled;
+
+    // Location of the journal file
+    private final Path path;
+
+    // Maximum number of journaled records sent before acknowledging them at once
+    private final int batchSize;
+
+    // Acknowledged bytes at the start of the journal past which the records left are moved up
+    private final DataSize compactThreshold;
+
+    // Delay before the first retry of a failed send, doubled after every further failure up to the maximum
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    // Journal of the records not sent yet, open only when enabled
+    private RecordJournal journal;
+
+    // Thread sending the journaled records
+    private Thread drainer;
+    private volatile boolean running;
+
+    // Time from journaling a record to the backend accepting it
+    private Timer drainLatency;
+
+    // Failed sends retried later, and records the backend refused and that were dropped
+    private Counter retries;
+    private Counter rejected;
+
+    /**
+     * Constructor for the write-behind service.
+     * @param timeTrackerService the service sending the records
+     * @param meterRegistry the registry the journal metrics are registered with
+     * @param enabled whether new records are journaled and sent in the background
+     * @param path the journal file
+     * @param batchSize the maximum number of records acknowledged at once
+     * @param compactThreshold the acknowledged journal bytes past which the journal is compacted
+     * @param initialBackoff the delay before the first retry of a failed send
+     * @param maxBackoff the longest delay between retries
+     */
+    public WriteBehindService(TimeTrackerService timeTrackerService, MeterRegistry meterRegistry,
+                              @Value("${timetracker.journal.enabled:false}") boolean enabled,
+                              @Value("${timetracker.journal.path:data/records.journal}") String path,
+                              @Value("${timetracker.journal.batch-size:50}") int batchSize,
+                              @Value("${timetracker.journal.compact-threshold:1MB}") DataSize compactThreshold,
+                              @Value("${timetracker.journal.initial-backoff:500ms}") Duration initialBackoff,
+                              @Value("${timetracker.journal.max-backoff:30s}") Duration maxBackoff) {
+        this.timeTrackerService = timeTrackerService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.batchSize = Math.max(1, batchSize);
+        this.compactThreshold = compactThreshold;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Opens the journal, registers its metrics and starts sending the records left
+     * over from a previous run, when write-behind is enabled.
+     * @throws IOException if the journal cannot be opened
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new RecordJournal(path, compactThreshold.toBytes());
+        Gauge.builder("timetracker.journal.depth", journal, RecordJournal::pending)
+                .description("Records journaled but not yet accepted by the backend")
+                .register(meterRegistry);
+        drainLatency = Timer.builder("timetracker.journal.drain.latency")
+                .description("Time from journaling a record to the backend accepting it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        retries = Counter.builder("timetracker.journal.retries")
+                .description("Sends of journaled records that failed and were retried")
+                .register(meterRegistry);
+        rejected = Counter.builder("timetracker.journal.rejected")
+                .description("Journaled records refused by the backend, or failing to send, and dropped")
+                .register(meterRegistry);
+        if (journal.pending() > 0) {
+            log.info("Replaying {} journaled records not yet sent to the backend", journal.pending());
+        }
+
+        running = true;
+        drainer = new Thread(this::drain, "records-journal-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Returns whether new records are journaled and sent in the background.
+     * @return true when write-behind is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journals a record to be sent to the backend. The record is on disk when this returns.
+     * @param record the time record to create
+     * @throws IOException if the record cannot be journaled
+     */
+    public void submit(TimeRecord record) throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("Write-behind is not enabled");
+        }
+        journal.append(record);
+        LockSupport.unpark(drainer);
+    }
+
+    /**
+     * Returns the number of records journaled but not yet accepted by the backend.
+     * @return the journal depth, 0 when write-behind is disabled
+     */
+    public long getPending() {
+        return journal != null ? journal.pending() : 0;
+    }
+
+    /**
+     * Stops the drainer and closes the journal; records not sent yet stay in it for the next start.
+     * The drainer is woken rather than interrupted, an interrupt would close the journal
+     * channels under a write.
+     * @throws IOException if the journal cannot be closed
+     * @throws InterruptedException if interrupted while waiting for the drainer
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (drainer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(drainer);
+        drainer.join(TimeUnit.SECONDS.toMillis(15));
+        journal.close();
+    }
+
+    /**
+     * Sends journaled records batch by batch until stopped, parking while the journal is empty.
+     */
+    private void drain() {
+        while (running) {
+            try {
+                if (drainBatch() == 0) {
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to drain the record journal", e);
+                LockSupport.parkNanos(this, initialBackoff.toNanos());
+            }
+        }
+    }
+
+    /**
+     * Sends the oldest journaled records, then acknowledges them and invalidates the
+     * cache once for each email. When interrupted, the records already sent are
+     * still acknowledged.
+     * @return the number of records handled
+     * @throws IOException if the journal cannot be read or written
+     * @throws InterruptedException if the service is stopped while retrying
+     */
+    int drainBatch() throws IOException, InterruptedException {
+        List<RecordJournal.Entry> entries = journal.read(batchSize);
+        Set<String> emails = new HashSet<>();
+        int handled = 0;
+        try {
+            for (RecordJournal.Entry entry : entries) {
+                if (send(entry.record())) {
+                    drainLatency.record(Math.max(0, System.currentTimeMillis() - entry.appendedAt()), TimeUnit.MILLISECONDS);
+                    emails.add(entry.record().getEmail());
+                }
+                handled++;
+            }
+        } finally {
+            if (handled > 0) {
+                journal.acknowledge(entries.get(handled - 1).end(), handled);
+                emails.forEach(timeTrackerService::invalidateCacheForEmail);
+            }
+        }
+        return handled;
+    }
+
+    /**
+     * Sends a record, retrying with exponential backoff until the backend answers.
+     * @param record the record to send
+     * @return true if the backend accepted the record, false if it refused it or it cannot be sent
+     * @throws InterruptedException if the service is stopped while waiting to retry
+     */
+    private boolean send(TimeRecord record) throws InterruptedException {
+        long backoff = initialBackoff.toMillis();
+        while (true) {
+            try {
+                timeTrackerService.postRecord(record);
+                return true;
+            } catch (HttpClientErrorException e) {
+                // A refused record would be refused again, retrying it would block the journal
+                log.error("Backend refused journaled record for {}, dropping it", record.getEmail(), e);
+                rejected.increment();
+                return false;
+            } catch (RestClientException e) {
+                retries.increment();
+                log.warn("Failed to send journaled record for {}, retrying in {} ms: {}",
+                        record.getEmail(), backoff, e.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoff));
+                if (!running) {
+                    throw new InterruptedException();
+                }
+                backoff = Math.min(backoff * 2, maxBackoff.toMillis());
+            } catch (RuntimeException e) {
+                // Not a failure of the exchange but of the record or the client, it would fail
+                // the same way on every retry; left to the drain loop, it would block the journal
+                log.error("Failed to send journaled record for {}, dropping it", record.getEmail(), e);
+                rejected.increment();
+                return false;
+            }
+        }
+    }
+}
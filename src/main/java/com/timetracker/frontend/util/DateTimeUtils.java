@@ -3,6 +3,8 @@ package com.timetracker.frontend.util;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Utility class for handling date and time conversions, parsing, and formatting.
@@ -18,6 +20,18 @@ public class DateTimeUtils {
     // Formatter for converting LocalDateTime to a formatted string, typically for requests.
     private static final DateTimeFormatter LOCAL_DATETIME_TO_STRING = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
 
+    // Length of a date-time formatted for display, such as "2024-01-31 - 17:05".
+    public static final int DISPLAY_LENGTH = 18;
+
+    // Zone used for the date-times sent to the backend.
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    // Upper bound on the number of resolved zones kept, as zone names come from clients.
+    private static final int MAX_RESOLVED_ZONES = 1024;
+
+    // Zones resolved so far by name, so that each name is only parsed once.
+    private static final ConcurrentMap<String, ZoneId> RESOLVED_ZONES = new ConcurrentHashMap<>();
+
     // Private constructor to prevent instantiation of this utility class.
     private DateTimeUtils() {
     }
@@ -34,14 +48,63 @@ public class DateTimeUtils {
     }
 
     /**
-     * Parses a string into a ZonedDateTime using a specific pattern.
+     * Parses a string into a ZonedDateTime using a specific pattern. Strings in the exact
+     * layout the backend sends, such as "2024-01-31T17:05:00.000+0100", are read by position
+     * without the formatter; anything else, including out of range fields, goes through the
+     * formatter so the result and errors stay the same.
      *
      * @param dateTimeStr the date-time string to parse
      * @return a ZonedDateTime object
      * @throws DateTimeParseException if the string cannot be parsed
      */
     public static ZonedDateTime parseStringToZonedDateTime(String dateTimeStr) throws DateTimeParseException {
-        return ZonedDateTime.parse(dateTimeStr, STRING_TO_ZONED_DATETIME);
+        ZonedDateTime parsed = parseFixedLayout(dateTimeStr);
+        return parsed != null ? parsed : ZonedDateTime.parse(dateTimeStr, STRING_TO_ZONED_DATETIME);
+    }
+
+    // Reads "yyyy-MM-ddTHH:mm:ss.SSS+hhmm" by position, or returns null if the string differs from it.
+    private static ZonedDateTime parseFixedLayout(String text) {
+        if (text == null || text.length() != 28
+                || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != '.') {
+            return null;
+        }
+        char sign = text.charAt(23);
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        int millis = digits(text, 20, 3);
+        int offsetHours = digits(text, 24, 2);
+        int offsetMinutes = digits(text, 26, 2);
+        if ((sign != '+' && sign != '-') || (year | month | day | hour | minute | second | millis
+                | offsetHours | offsetMinutes) < 0) {
+            return null;
+        }
+        try {
+            ZoneOffset offset = sign == '+'
+                    ? ZoneOffset.ofHoursMinutes(offsetHours, offsetMinutes)
+                    : ZoneOffset.ofHoursMinutes(-offsetHours, -offsetMinutes);
+            return ZonedDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000, offset);
+        } catch (DateTimeException e) {
+            // Let the formatter resolve or reject the fields
+            return null;
+        }
+    }
+
+    // Reads a run of ASCII digits as a number, or returns -1 if any character is not a digit.
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
     }
 
     /**
@@ -53,10 +116,29 @@ public class DateTimeUtils {
      * @throws DateTimeException if the timezone is invalid
      */
     public static ZonedDateTime convertToZonedDateTime(LocalDateTime localDateTime, String timezone) throws DateTimeException {
-        ZoneId zoneId = ZoneId.of(timezone);
+        ZoneId zoneId = resolveZoneId(timezone);
         return localDateTime.atZone(zoneId);
     }
 
+    /**
+     * Resolves a timezone name into a ZoneId, reusing the zones already resolved.
+     * Invalid names are rejected and never kept.
+     *
+     * @param timezone the timezone as a string, such as "+02:00" or "Europe/Rome"
+     * @return the ZoneId for the name
+     * @throws DateTimeException if the timezone is invalid
+     */
+    public static ZoneId resolveZoneId(String timezone) throws DateTimeException {
+        ZoneId zoneId = RESOLVED_ZONES.get(timezone);
+        if (zoneId == null) {
+            zoneId = ZoneId.of(timezone);
+            if (RESOLVED_ZONES.size() < MAX_RESOLVED_ZONES) {
+                RESOLVED_ZONES.putIfAbsent(timezone, zoneId);
+            }
+        }
+        return zoneId;
+    }
+
     /**
      * Validates if a date range is valid. Ensures the start time is before the end time,
      * and both are not in the future.
@@ -78,7 +160,53 @@ public class DateTimeUtils {
      * @return a formatted string representation of the ZonedDateTime
      */
     public static String formatZonedDateTime(ZonedDateTime zonedDateTime, String timezone) {
-        return zonedDateTime.withZoneSameInstant(ZoneId.of(timezone)).format(ZONED_DATETIME_TO_STRING);
+        StringBuilder builder = new StringBuilder(DISPLAY_LENGTH);
+        appendZonedDateTime(builder, zonedDateTime, resolveZoneId(timezone));
+        return builder.toString();
+    }
+
+    /**
+     * Appends a ZonedDateTime, seen from the given zone, to a builder in the display format
+     * "yyyy-MM-dd - HH:mm". Lets callers reuse one builder across many date-times.
+     *
+     * @param builder       the builder to append to
+     * @param zonedDateTime the ZonedDateTime to format
+     * @param zoneId        the target zone for formatting
+     */
+    public static void appendZonedDateTime(StringBuilder builder, ZonedDateTime zonedDateTime, ZoneId zoneId) {
+        appendEpochSecond(builder, zonedDateTime.toEpochSecond(), zoneId);
+    }
+
+    /**
+     * Appends an instant given in milliseconds since the epoch, seen from the given zone, to
+     * a builder in the display format "yyyy-MM-dd - HH:mm", without creating a ZonedDateTime.
+     *
+     * @param builder    the builder to append to
+     * @param epochMilli the instant as milliseconds since the epoch
+     * @param zoneId     the target zone for formatting
+     */
+    public static void appendEpochMilli(StringBuilder builder, long epochMilli, ZoneId zoneId) {
+        appendEpochSecond(builder, Math.floorDiv(epochMilli, 1000), zoneId);
+    }
+
+    // Appends an instant in seconds since the epoch, seen from the given zone, in the display format.
+    private static void appendEpochSecond(StringBuilder builder, long epochSecond, ZoneId zoneId) {
+        ZoneOffset offset = zoneId instanceof ZoneOffset zoneOffset
+                ? zoneOffset
+                : zoneId.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+        LocalDateTime local = LocalDateTime.ofEpochSecond(epochSecond, 0, offset);
+
+        // The fixed layout below only holds for four-digit years
+        int year = local.getYear();
+        if (year < 0 || year > 9999) {
+            ZONED_DATETIME_TO_STRING.formatTo(local, builder);
+            return;
+        }
+        appendPadded(builder, year, 4).append('-');
+        appendPadded(builder, local.getMonthValue(), 2).append('-');
+        appendPadded(builder, local.getDayOfMonth(), 2).append(" - ");
+        appendPadded(builder, local.getHour(), 2).append(':');
+        appendPadded(builder, local.getMinute(), 2);
     }
 
     /**
@@ -88,7 +216,7 @@ public class DateTimeUtils {
      * @return a formatted string representation in UTC
      */
     public static String formatForPostRequest(ZonedDateTime zonedDateTime) {
-        return zonedDateTime.withZoneSameInstant(ZoneId.of("UTC")).format(LOCAL_DATETIME_TO_STRING);
+        return zonedDateTime.withZoneSameInstant(UTC).format(LOCAL_DATETIME_TO_STRING);
     }
 
     /**
@@ -107,4 +235,14 @@ public class DateTimeUtils {
         // Convert the LocalDateTime to ZonedDateTime using the specified timezone
         return convertToZonedDateTime(localDateTime, timezone);
     }
+
+    // Appends a non-negative number left-padded with zeros to the given number of digits.
+    private static StringBuilder appendPadded(StringBuilder builder, int value, int digits) {
+        for (int limit = 10; digits > 1; digits--, limit *= 10) {
+            if (value < limit) {
+                builder.append('0');
+            }
+        }
+        return builder.append(value);
+    }
 }
\ No newline at end of file
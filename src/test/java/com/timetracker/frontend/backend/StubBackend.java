@@ -0,0 +1,244 @@
+package com.timetracker.frontend.backend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the timetracker backend, serving GET and POST /records
+ * with the date formats of the real service. Every email starts with a generated
+ * history of records of a configurable size; posted records are added to it.
+ * Responses can be delayed to simulate a slow backend, and a share of them failed
+ * with a 500 to simulate a flaky one.
+ */
+public class StubBackend implements AutoCloseable {
+
+    // Date format of the records returned by GET /records
+    private static final DateTimeFormatter RECORD_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    // Date format of the start and end fields accepted by POST /records
+    private static final DateTimeFormatter FORM_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+
+    static {
+        // Write responses without Nagle delays, which would otherwise dominate latencies
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final ZonedDateTime HISTORY_START = ZonedDateTime.of(2020, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    // Records added through POST, by email
+    private final Map<String, List<String>> posted = new ConcurrentHashMap<>();
+
+    private final AtomicLong gets = new AtomicLong();
+
+    private final AtomicLong posts = new AtomicLong();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private volatile int recordsPerEmail = 1000;
+
+    private volatile double errorRate;
+
+    /**
+     * Starts a stub backend on a free local port.
+     * @throws IOException if the server cannot be started
+     */
+    public StubBackend() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/records", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the base URL of the stub, to use as timetracker.backend.url.
+     * @return the base URL
+     */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Delays every response by the given latency.
+     * @param latency the artificial latency
+     * @return this stub
+     */
+    public StubBackend latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Sets the number of generated records every email starts with.
+     * @param recordsPerEmail the size of each email's generated history
+     * @return this stub
+     */
+    public StubBackend recordsPerEmail(int recordsPerEmail) {
+        this.recordsPerEmail = recordsPerEmail;
+        return this;
+    }
+
+    /**
+     * Fails the given share of requests with a 500 after the latency, before serving them.
+     * @param errorRate the share of requests to fail, between 0 and 1
+     * @return this stub
+     */
+    public StubBackend errorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1: " + errorRate);
+        }
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Returns the number of GET /records requests served.
+     * @return the GET count
+     */
+    public long gets() {
+        return gets.get();
+    }
+
+    /**
+     * Returns the number of POST /records requests served.
+     * @return the POST count
+     */
+    public long posts() {
+        return posts.get();
+    }
+
+    /**
+     * Returns the number of requests failed on purpose.
+     * @return the injected error count
+     */
+    public long errors() {
+        return errors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sleep(latency);
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                send(exchange, 500, "Injected failure", "text/plain");
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> getRecords(exchange);
+                case "POST" -> postRecord(exchange);
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void getRecords(HttpExchange exchange) throws IOException {
+        gets.incrementAndGet();
+        Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+        String email = query.getOrDefault("email", "");
+        int offset = Integer.parseInt(query.getOrDefault("offset", "0"));
+        int length = Integer.parseInt(query.getOrDefault("length", "10"));
+
+        List<String> added = posted.getOrDefault(email, List.of());
+        int total = recordsPerEmail + added.size();
+        StringBuilder body = new StringBuilder(length * 96).append('[');
+        for (int i = offset; i < Math.min(total, offset + length); i++) {
+            if (i > offset) {
+                body.append(',');
+            }
+            body.append(i < recordsPerEmail ? generated(email, i) : added.get(i - recordsPerEmail));
+        }
+        send(exchange, 200, body.append(']').toString(), "application/json");
+    }
+
+    private void postRecord(HttpExchange exchange) throws IOException {
+        posts.incrementAndGet();
+        Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        try {
+            ZonedDateTime start = LocalDateTime.parse(form.get("start"), FORM_FORMAT).atZone(ZoneOffset.UTC);
+            ZonedDateTime end = LocalDateTime.parse(form.get("end"), FORM_FORMAT).atZone(ZoneOffset.UTC);
+            String email = form.get("email");
+            posted.computeIfAbsent(email, e -> new CopyOnWriteArrayList<>()).add(json(email, start, end));
+            send(exchange, 200, "", "text/plain");
+        } catch (DateTimeParseException | NullPointerException e) {
+            send(exchange, 400, "Invalid record", "text/plain");
+        }
+    }
+
+    private static String generated(String email, int index) {
+        ZonedDateTime start = HISTORY_START.plusDays(index);
+        return json(email, start, start.plusHours(8).plusMinutes(index % 60));
+    }
+
+    private static String json(String email, ZonedDateTime start, ZonedDateTime end) {
+        return "{\"email\":\"" + email + "\",\"start\":\"" + RECORD_FORMAT.format(start)
+                + "\",\"end\":\"" + RECORD_FORMAT.format(end) + "\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String body, String contentType) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Map<String, String> parseForm(String encoded) {
+        Map<String, String> values = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return values;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            values.put(name, value);
+        }
+        return values;
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.timetracker.frontend.config;
+
+import com.timetracker.frontend.backend.StubBackend;
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class BackendClientConfigTests {
+
+    private final BackendClientConfig config = new BackendClientConfig();
+
+    @Test
+    void pooledClientReadsRecordsFromBackend() throws Exception {
+        try (StubBackend backend = new StubBackend().recordsPerEmail(25);
+             CloseableHttpClient httpClient = httpClient(Duration.ofSeconds(5), Duration.ofSeconds(10))) {
+            RestTemplate restTemplate = restTemplate(backend, httpClient);
+
+            for (int offset = 0; offset < 30; offset += 10) {
+                TimeRecord[] records = restTemplate.getForObject(
+                        "/records?email={email}&offset={offset}&length=10", TimeRecord[].class, "a+b@example.com", offset);
+                assertThat(records).hasSize(Math.min(10, 25 - offset));
+            }
+        }
+    }
+
+    @Test
+    void totalTimeoutAbortsSlowExchangeBeforeReadTimeout() throws Exception {
+        try (StubBackend backend = new StubBackend().latency(Duration.ofSeconds(3));
+             CloseableHttpClient httpClient = httpClient(Duration.ofSeconds(10), Duration.ofMillis(300))) {
+            RestTemplate restTemplate = restTemplate(backend, httpClient);
+
+            long start = System.nanoTime();
+            assertThatExceptionOfType(ResourceAccessException.class).isThrownBy(() ->
+                    restTemplate.getForObject("/records?email=a@example.com&offset=0&length=10", TimeRecord[].class));
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        }
+    }
+
+    private CloseableHttpClient httpClient(Duration readTimeout, Duration totalTimeout) {
+        return config.backendHttpClient(4, 4, Duration.ofSeconds(30), Duration.ofSeconds(1), readTimeout, totalTimeout);
+    }
+
+    private RestTemplate restTemplate(StubBackend backend, CloseableHttpClient httpClient) {
+        return config.backendRestTemplate(new RestTemplateBuilder(), httpClient, new SimpleMeterRegistry(), backend.url());
+    }
+}
@@ -0,0 +1,104 @@
+package com.timetracker.frontend.controller;
+
+import com.timetracker.frontend.backend.StubBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Streams record exports from the embedded server against the in-process stub backend:
+ * more exports at once than the application task executor has core threads, which
+ * stalled when exports and their read-aheads shared it, and an export outliving its
+ * timeout, which must not end as a clean but short download.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "timetracker.export.page-size=100",
+        "timetracker.export.max-concurrent=16",
+        "timetracker.export.timeout=5s"
+})
+class RecordsExportTests {
+
+    private static final int RECORDS_PER_EMAIL = 1000;
+
+    // Twice the core size of the application task executor
+    private static final int CONCURRENT_EXPORTS = 16;
+
+    private static final StubBackend backend = startBackend();
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        registry.add("timetracker.backend.url", backend::url);
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        backend.close();
+    }
+
+    @Test
+    void concurrentExportsAllComplete() throws Exception {
+        backend.latency(Duration.ofMillis(20));
+        try {
+            List<CompletableFuture<HttpResponse<String>>> exports = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_EXPORTS; i++) {
+                exports.add(client.sendAsync(export("export" + i + "@example.com"), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> export : exports) {
+                HttpResponse<String> response = export.get(20, TimeUnit.SECONDS);
+                assertThat(response.statusCode()).isEqualTo(200);
+                assertThat(response.body().lines()).hasSize(RECORDS_PER_EMAIL);
+            }
+        } finally {
+            backend.latency(Duration.ZERO);
+        }
+    }
+
+    @Test
+    void exportCutOffByTheTimeoutIsAborted() {
+        // Ten pages at 800 ms each outlast the five second timeout after the first page is sent
+        backend.latency(Duration.ofMillis(800));
+        try {
+            assertThatThrownBy(() -> client.send(export("slow@example.com"), HttpResponse.BodyHandlers.ofString()))
+                    .isInstanceOf(IOException.class);
+        } finally {
+            backend.latency(Duration.ZERO);
+        }
+    }
+
+    private HttpRequest export(String email) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/timetracker/api/records/export?email=" + email))
+                .timeout(Duration.ofSeconds(20))
+                .build();
+    }
+
+    private static StubBackend startBackend() {
+        try {
+            return new StubBackend().recordsPerEmail(RECORDS_PER_EMAIL);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
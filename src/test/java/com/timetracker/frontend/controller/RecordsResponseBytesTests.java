@@ -0,0 +1,84 @@
+package com.timetracker.frontend.controller;
+
+import com.timetracker.frontend.backend.StubBackend;
+import com.timetracker.frontend.model.RecordsCursor;
+import com.timetracker.frontend.service.CursorService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the bytes on the wire of a "Load more" page served by the embedded server,
+ * plain, gzipped, and revalidated with its ETag. The HTTP client neither compresses
+ * nor decompresses, so the body read is the body sent.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"timetracker.length=10", "timetracker.prefetch.depth=0"})
+class RecordsResponseBytesTests {
+
+    private static final StubBackend backend = startBackend();
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CursorService cursorService;
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        registry.add("timetracker.backend.url", backend::url);
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        backend.close();
+    }
+
+    @Test
+    void pagesAreGzippedAndRevalidatedWithoutABody() throws Exception {
+        URI uri = URI.create("http://localhost:" + port + "/timetracker/api/records?cursor="
+                + cursorService.encode(new RecordsCursor("alice@example.com", "Europe/Berlin", 10)));
+
+        HttpResponse<byte[]> plain = client.send(HttpRequest.newBuilder(uri).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> gzipped = client.send(HttpRequest.newBuilder(uri).header("Accept-Encoding", "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        String etag = plain.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<byte[]> revalidated = client.send(HttpRequest.newBuilder(uri)
+                        .header("Accept-Encoding", "gzip").header("If-None-Match", etag).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        System.out.printf("Load more page: %d bytes plain, %d gzipped, %d when not modified%n",
+                plain.body().length, gzipped.body().length, revalidated.body().length);
+
+        assertThat(plain.statusCode()).isEqualTo(200);
+        assertThat(plain.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(gzipped.statusCode()).isEqualTo(200);
+        assertThat(gzipped.headers().firstValue("Content-Encoding")).contains("gzip");
+        assertThat(gzipped.headers().firstValue("ETag")).isPresent();
+        assertThat(gzipped.body().length).isLessThan(plain.body().length / 3);
+        assertThat(revalidated.statusCode()).isEqualTo(304);
+        assertThat(revalidated.body()).isEmpty();
+    }
+
+    private static StubBackend startBackend() {
+        try {
+            return new StubBackend();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.timetracker.frontend.controller;
+
+import com.timetracker.frontend.model.CompactTimeRecords;
+import com.timetracker.frontend.model.RecordPage;
+import com.timetracker.frontend.model.RecordSummary;
+import com.timetracker.frontend.model.RecordsCursor;
+import com.timetracker.frontend.model.TimeRecord;
+import com.timetracker.frontend.model.ImportResult;
+import com.timetracker.frontend.service.CursorService;
+import com.timetracker.frontend.service.ExportExecutors;
+import com.timetracker.frontend.service.RecordImportService;
+import com.timetracker.frontend.service.TimeTrackerService;
+import com.timetracker.frontend.service.WriteBehindService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = TimeTrackerController.class, properties = "timetracker.length=2")
+@Import({CursorService.class, ExportExecutors.class})
+class TimeTrackerControllerTests {
+
+    private static final String EMAIL = "alice@example.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CursorService cursorService;
+
+    @MockBean
+    private TimeTrackerService timeTrackerService;
+
+    @MockBean
+    private RecordImportService recordImportService;
+
+    @MockBean
+    private WriteBehindService writeBehindService;
+
+    @Test
+    void cursorServesNextPageWithoutSession() throws Exception {
+        given(timeTrackerService.getRecordsPage(eq(EMAIL), anyInt(), eq(2))).willReturn(recordPage(page(2), false));
+        String cursor = cursorService.encode(new RecordsCursor(EMAIL, "+02:00", 2));
+
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(request().sessionAttributeDoesNotExist("email"))
+                .andExpect(jsonPath("$.records.length()").value(2))
+                .andExpect(jsonPath("$.records[0].start").value("2024-01-01 - 10:00"))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andExpect(jsonPath("$.cursor").value(cursorService.encode(new RecordsCursor(EMAIL, "+02:00", 4))));
+    }
+
+    @Test
+    void invalidOrForeignCursorIsABadRequest() throws Exception {
+        String foreign = new CursorService("another instance").encode(new RecordsCursor(EMAIL, "+02:00", 2));
+
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", foreign))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        verify(timeTrackerService, never()).getRecordsPage(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void compactPageIsFormattedLikeTheRecords() throws Exception {
+        given(timeTrackerService.getRecordsPage(eq(EMAIL), anyInt(), eq(2)))
+                .willReturn(recordPage(CompactTimeRecords.of(page(2)), false));
+        String cursor = cursorService.encode(new RecordsCursor(EMAIL, "Europe/Rome", 2));
+
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.records[0].email").value(EMAIL))
+                .andExpect(jsonPath("$.records[0].start").value("2024-01-01 - 09:00"))
+                .andExpect(jsonPath("$.records[1].end").value("2024-01-01 - 17:00"));
+    }
+
+    @Test
+    void unchangedPageIsAnsweredNotModified() throws Exception {
+        given(timeTrackerService.getRecordsPage(eq(EMAIL), anyInt(), eq(2))).willReturn(recordPage(page(2), false));
+        String cursor = cursorService.encode(new RecordsCursor(EMAIL, "+02:00", 2));
+
+        MvcResult first = mockMvc.perform(get("/timetracker/api/records").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", cursor).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        // Another timezone or another page of records is a different response
+        String otherZone = cursorService.encode(new RecordsCursor(EMAIL, "UTC", 2));
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", otherZone).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        given(timeTrackerService.getRecordsPage(eq(EMAIL), anyInt(), eq(2))).willReturn(recordPage(page(1), false));
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", cursor).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void lastPageHasNoCursor() throws Exception {
+        given(timeTrackerService.getRecordsPage(eq(EMAIL), anyInt(), eq(2))).willReturn(recordPage(page(1), false));
+        String cursor = cursorService.encode(new RecordsCursor(EMAIL, "+02:00", 4));
+
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.cursor").doesNotExist());
+    }
+
+    @Test
+    void viewRecordsRendersFormattedRecords() throws Exception {
+        given(timeTrackerService.getRecordsPage(EMAIL, 0, 2)).willReturn(recordPage(page(1), false));
+
+        mockMvc.perform(post("/timetracker/view-records").param("email", EMAIL).param("timezone", "+02:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("2024-01-01 - 18:00")));
+    }
+
+    @Test
+    void stalePageIsFlagged() throws Exception {
+        given(timeTrackerService.getRecordsPage(eq(EMAIL), anyInt(), eq(2))).willReturn(recordPage(page(1), true));
+        String cursor = cursorService.encode(new RecordsCursor(EMAIL, "+02:00", 2));
+
+        mockMvc.perform(get("/timetracker/api/records").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stale").value(true));
+        mockMvc.perform(post("/timetracker/view-records").param("email", EMAIL).param("timezone", "+02:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("<p id=\"stale-notice\" class=\"error-message\">")));
+    }
+
+    @Test
+    void viewRecordsRejectsUnknownTimezone() throws Exception {
+        mockMvc.perform(post("/timetracker/view-records").param("email", EMAIL).param("timezone", "Mars/Olympus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Invalid timezone")));
+    }
+
+    @Test
+    void summaryReturnsHoursPerBucket() throws Exception {
+        given(timeTrackerService.summarizeRecordsByEmail(EMAIL, ZoneId.of("Europe/Rome"), ChronoUnit.WEEKS))
+                .willReturn(new RecordSummary(EMAIL, "Europe/Rome", "week",
+                        List.of(new RecordSummary.Bucket(LocalDate.of(2024, 1, 1), 37.5)), 37.5));
+
+        mockMvc.perform(get("/timetracker/api/records/summary")
+                        .param("email", EMAIL).param("timezone", "Europe/Rome").param("period", "week"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.buckets[0].start").value("2024-01-01"))
+                .andExpect(jsonPath("$.buckets[0].hours").value(37.5))
+                .andExpect(jsonPath("$.totalHours").value(37.5));
+        mockMvc.perform(get("/timetracker/api/records/summary").param("email", EMAIL).param("period", "month"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/timetracker/api/records/summary").param("email", EMAIL).param("timezone", "Mars/Olympus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsEveryPageAsNdjson() throws Exception {
+        willAnswer(invocation -> {
+            TimeTrackerService.PageConsumer consumer = invocation.getArgument(2);
+            consumer.accept(page(2));
+            consumer.accept(page(1));
+            return 3L;
+        }).given(timeTrackerService).exportRecordsByEmail(eq(EMAIL), anyInt(), any());
+
+        MvcResult result = mockMvc.perform(get("/timetracker/api/records/export")
+                        .param("email", EMAIL).param("timezone", "+02:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(String.join("",
+                        Collections.nCopies(3, "{\"email\":\"alice@example.com\",\"start\":\"2024-01-01 - 10:00\",\"end\":\"2024-01-01 - 18:00\"}\n"))));
+    }
+
+    @Test
+    void exportWritesCsvWithHeader() throws Exception {
+        willAnswer(invocation -> {
+            TimeTrackerService.PageConsumer consumer = invocation.getArgument(2);
+            consumer.accept(List.of(new TimeRecord("a,\"b\"@example.com", page(1).get(0).getStart(), page(1).get(0).getEnd())));
+            return 1L;
+        }).given(timeTrackerService).exportRecordsByEmail(eq(EMAIL), anyInt(), any());
+
+        MvcResult result = mockMvc.perform(get("/timetracker/api/records/export")
+                        .param("email", EMAIL).param("format", "csv"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("email,start,end\n\"a,\"\"b\"\"@example.com\",2024-01-01 - 08:00,2024-01-01 - 16:00\n"));
+    }
+
+    @Test
+    void exportRejectsUnknownFormatAndTimezone() throws Exception {
+        mockMvc.perform(get("/timetracker/api/records/export").param("email", EMAIL).param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/timetracker/api/records/export").param("email", EMAIL).param("timezone", "Mars/Olympus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importReportsPerRowErrors() throws Exception {
+        given(recordImportService.importRecords(any(), eq("+02:00"))).willReturn(
+                new ImportResult(2, 1, 1, List.of(new ImportResult.RowError(2, "Email cannot be empty")), 5, 200.0));
+        MockMultipartFile file = new MockMultipartFile("file", "records.csv", "text/csv",
+                "alice@example.com,2024-01-01T08:00,2024-01-01T16:00\n,2024-01-01T08:00,2024-01-01T16:00\n".getBytes());
+
+        mockMvc.perform(multipart("/timetracker/api/records/import").file(file).param("timezone", "+02:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Email cannot be empty"))
+                .andExpect(jsonPath("$.recordsPerSecond").value(200.0));
+    }
+
+    @Test
+    void createRecordReportsBackendFailure() throws Exception {
+        willThrow(new ResourceAccessException("backend down")).given(timeTrackerService).createRecord(any());
+
+        mockMvc.perform(post("/timetracker/create-record").param("email", EMAIL)
+                        .param("start", "2024-01-01T08:00").param("end", "2024-01-01T16:00").param("timezone", "UTC"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("An error occurred: backend down")))
+                .andExpect(content().string(not(containsString("Record created successfully"))));
+    }
+
+    @Test
+    void createRecordIsJournaledInWriteBehindMode() throws Exception {
+        given(writeBehindService.isEnabled()).willReturn(true);
+
+        mockMvc.perform(post("/timetracker/create-record").param("email", EMAIL)
+                        .param("start", "2024-01-01T08:00").param("end", "2024-01-01T16:00").param("timezone", "UTC"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Record accepted, it will be saved shortly")));
+        verify(writeBehindService).submit(any());
+        verify(timeTrackerService, never()).createRecord(any());
+    }
+
+    private static RecordPage recordPage(List<TimeRecord> records, boolean stale) {
+        return new RecordPage(records, stale, records.hashCode());
+    }
+
+    private static List<TimeRecord> page(int size) {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+        return Collections.nCopies(size, new TimeRecord(EMAIL, start, start.plusHours(8)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.timetracker.frontend.load;
+
+import com.timetracker.frontend.backend.StubBackend;
+import com.timetracker.frontend.config.BackendClientConfig;
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.time.Duration;
+
+/**
+ * Compares the JDK-backed default REST template with the pooled, timeout-bounded
+ * backend client against a stub backend, first healthy and then stalling.
+ * Run with: mvn test -Pload-test -Dtest=BackendClientLoadTest
+ */
+@Tag("load")
+class BackendClientLoadTest {
+
+    private static final Duration RUN = Duration.ofSeconds(5);
+
+    private static final String PATH = "/records?email={email}&offset=0&length=10";
+
+    @Test
+    void defaultClientAgainstPooledClient() throws Exception {
+        BackendClientConfig config = new BackendClientConfig();
+        try (StubBackend backend = new StubBackend().latency(Duration.ofMillis(20));
+             CloseableHttpClient httpClient = config.backendHttpClient(64, 64, Duration.ofSeconds(30),
+                     Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            RestTemplate before = new RestTemplate();
+            before.setUriTemplateHandler(new DefaultUriBuilderFactory(backend.url()));
+            RestTemplate after = config.backendRestTemplate(new RestTemplateBuilder(), httpClient,
+                    new SimpleMeterRegistry(), backend.url());
+
+            for (int concurrency : new int[]{16, 64}) {
+                System.out.println(LoadDriver.run("default client, 20ms backend", concurrency, RUN,
+                        () -> before.getForObject(PATH, TimeRecord[].class, "user@example.com")));
+                System.out.println(LoadDriver.run("pooled client, 20ms backend", concurrency, RUN,
+                        () -> after.getForObject(PATH, TimeRecord[].class, "user@example.com")));
+            }
+
+            // A stalled backend holds callers of the default client for as long as it stalls
+            backend.latency(Duration.ofSeconds(4));
+            System.out.println(LoadDriver.run("default client, 4s backend", 16, RUN,
+                    () -> before.getForObject(PATH, TimeRecord[].class, "user@example.com")));
+            System.out.println(LoadDriver.run("pooled client, 4s backend", 16, RUN,
+                    () -> after.getForObject(PATH, TimeRecord[].class, "user@example.com")));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.timetracker.frontend.load;
+
+import com.timetracker.frontend.backend.StubBackend;
+import com.timetracker.frontend.model.RecordsCursor;
+import com.timetracker.frontend.service.CursorService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives the three user-facing endpoints of the frontend, "view records", "Load more"
+ * and "create record", at rising concurrency against the in-process stub backend, and
+ * reports throughput with p50, p99 and p99.9 latencies per level. Users pick their email
+ * from a fixed pool, so pages are served from the cache and from the backend in a mix,
+ * and created records invalidate pages other users are reading. A last run repeats
+ * "Load more" against a backend failing a share of its calls.
+ * Run with: mvn test -Pload-test -Dtest=FrontendEndToEndLoadTest
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "timetracker.backend.pool.max-total=512",
+        "timetracker.backend.pool.max-per-route=512",
+        "timetracker.backend.read-timeout=30s",
+        "timetracker.backend.total-timeout=30s"
+})
+class FrontendEndToEndLoadTest {
+
+    private static final Duration BACKEND_LATENCY = Duration.ofMillis(20);
+
+    // Dataset: every email of the pool starts with this many records
+    private static final int EMAILS = 200;
+
+    private static final int RECORDS_PER_EMAIL = 1000;
+
+    private static final int[] CONCURRENCY = {1, 8, 32, 128};
+
+    private static final Duration RUN = Duration.ofSeconds(3);
+
+    // Share of backend calls failed in the flaky backend run
+    private static final double ERROR_RATE = 0.05;
+
+    private static final StubBackend backend = startBackend();
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CursorService cursorService;
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        registry.add("timetracker.backend.url", backend::url);
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        backend.close();
+    }
+
+    @Test
+    void endpointsAtRisingConcurrency() throws Exception {
+        run("POST /view-records", this::viewRecords);
+        run("GET /api/records", this::loadMore);
+        run("POST /create-record", this::createRecord);
+
+        // Failed backend calls surface as failed requests unless a last known page covers them
+        backend.errorRate(ERROR_RATE);
+        try {
+            run(String.format("GET /api/records, %.0f%% errors", ERROR_RATE * 100), this::loadMore);
+            System.out.printf("  backend calls failed on purpose: %d%n", backend.errors());
+        } finally {
+            backend.errorRate(0);
+        }
+    }
+
+    /**
+     * Runs a scenario at every concurrency level and prints a line per level, followed
+     * by the backend calls the scenario caused.
+     * @param name the name of the scenario
+     * @param action one user request, throwing if it did not succeed
+     */
+    private void run(String name, Callable<?> action) throws Exception {
+        long gets = backend.gets();
+        long posts = backend.posts();
+        for (int concurrency : CONCURRENCY) {
+            System.out.println(LoadDriver.run(name, concurrency, RUN, action));
+        }
+        System.out.printf("  backend GETs: %d, POSTs: %d%n", backend.gets() - gets, backend.posts() - posts);
+    }
+
+    private Object viewRecords() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri("/view-records"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(form("email", randomEmail(), "timezone", "Europe/Berlin"))
+                .build());
+    }
+
+    private Object loadMore() throws IOException, InterruptedException {
+        int offset = ThreadLocalRandom.current().nextInt(1, RECORDS_PER_EMAIL / 10) * 10;
+        String cursor = cursorService.encode(new RecordsCursor(randomEmail(), "Europe/Berlin", offset));
+        return send(HttpRequest.newBuilder(uri("/api/records?cursor=" + cursor)).GET().build());
+    }
+
+    private Object createRecord() throws IOException, InterruptedException {
+        LocalDate day = LocalDate.of(2023, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(365));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/create-record"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(form("email", randomEmail(), "start", day + "T08:00", "end", day + "T16:30", "timezone", "UTC"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        // Failures are reported on the form page with a 200
+        if (response.statusCode() != 200 || !response.body().contains("Record created successfully")) {
+            throw new IOException("Record not created, status " + response.statusCode());
+        }
+        return response;
+    }
+
+    private HttpResponse<Void> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode());
+        }
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/timetracker" + path);
+    }
+
+    private static String randomEmail() {
+        return "user" + ThreadLocalRandom.current().nextInt(EMAILS) + "@example.com";
+    }
+
+    private static HttpRequest.BodyPublisher form(String... namesAndValues) {
+        StringBuilder form = new StringBuilder();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                form.append('&');
+            }
+            form.append(namesAndValues[i]).append('=').append(URLEncoder.encode(namesAndValues[i + 1], StandardCharsets.UTF_8));
+        }
+        return HttpRequest.BodyPublishers.ofString(form.toString());
+    }
+
+    private static StubBackend startBackend() {
+        try {
+            return new StubBackend().latency(BACKEND_LATENCY).recordsPerEmail(RECORDS_PER_EMAIL);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.timetracker.frontend.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Drives an action from a fixed number of concurrent callers for a fixed time and
+ * summarizes throughput and latency percentiles.
+ */
+public final class LoadDriver {
+
+    /**
+     * Outcome of a load run.
+     *
+     * @param name        the name of the scenario
+     * @param concurrency the number of concurrent callers
+     * @param requests    the number of completed calls, failed ones included
+     * @param errors      the number of failed calls
+     * @param throughput  the completed calls per second
+     * @param p50Millis   the median latency in milliseconds
+     * @param p99Millis   the 99th percentile latency in milliseconds
+     * @param p999Millis  the 99.9th percentile latency in milliseconds
+     */
+    public record Result(String name, int concurrency, long requests, long errors, double throughput,
+                         double p50Millis, double p99Millis, double p999Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%-32s c=%-4d req=%-7d err=%-6d %9.1f req/s  p50=%8.2fms  p99=%8.2fms  p99.9=%8.2fms",
+                    name, concurrency, requests, errors, throughput, p50Millis, p99Millis, p999Millis);
+        }
+    }
+
+    private LoadDriver() {
+    }
+
+    /**
+     * Calls the action in a loop from the given number of threads until the duration has passed.
+     * @param name the name of the scenario
+     * @param concurrency the number of concurrent callers
+     * @param duration how long to keep calling
+     * @param action the call to measure; throwing counts as an error
+     * @return the summary of the run
+     * @throws Exception if the callers cannot be run
+     */
+    public static Result run(String name, int concurrency, Duration duration, Callable<?> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            long[] deadline = new long[1];
+            List<Future<long[]>> callers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                callers.add(executor.submit(() -> callLoop(start, deadline, action)));
+            }
+
+            long begin = System.nanoTime();
+            deadline[0] = begin + duration.toNanos();
+            start.countDown();
+
+            // Each caller returns its latencies, with failed calls stored negated
+            long[] latencies = new long[0];
+            for (Future<long[]> caller : callers) {
+                long[] callerLatencies = caller.get();
+                long[] merged = Arrays.copyOf(latencies, latencies.length + callerLatencies.length);
+                System.arraycopy(callerLatencies, 0, merged, latencies.length, callerLatencies.length);
+                latencies = merged;
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+
+            long errors = Arrays.stream(latencies).filter(latency -> latency < 0).count();
+            long[] sorted = Arrays.stream(latencies).map(Math::abs).sorted().toArray();
+            return new Result(name, concurrency, sorted.length, errors, sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long[] callLoop(CountDownLatch start, long[] deadline, Callable<?> action) throws InterruptedException {
+        start.await();
+        long end = deadline[0];
+        long[] latencies = new long[1024];
+        int count = 0;
+        for (long now = System.nanoTime(); now < end; ) {
+            boolean failed = false;
+            try {
+                action.call();
+            } catch (Exception e) {
+                failed = true;
+            }
+            long after = System.nanoTime();
+            long latency = Math.max(1, after - now);
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = failed ? -latency : latency;
+            now = after;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,145 @@
+package com.timetracker.frontend.load;
+
+import com.timetracker.frontend.TimetrackerFrontendApplication;
+import com.timetracker.frontend.backend.StubBackend;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the backend calls and the latency of each "Load more" while users scroll
+ * through 200 records ten at a time, once with every UI page fetched on its own and
+ * once with a backend fetch size of 100. Prefetching is off so that only the fetch
+ * size differs.
+ * mvn test -Pload-test -Dtest=LoadMoreFetchSizeLoadTest
+ */
+@Tag("load")
+class LoadMoreFetchSizeLoadTest {
+
+    private static final Duration BACKEND_LATENCY = Duration.ofMillis(20);
+
+    private static final int UI_PAGE_SIZE = 10;
+
+    private static final int SCROLLED_RECORDS = 200;
+
+    private static final int USERS = 8;
+
+    private static final int SESSIONS_PER_USER = 5;
+
+    private static final AtomicLong emails = new AtomicLong();
+
+    /**
+     * Outcome of one configuration.
+     *
+     * @param fetchSize   the backend fetch size
+     * @param loadMores   the number of "Load more" requests made
+     * @param backendGets the number of backend calls for the whole run, first pages included
+     * @param latencies   the sorted "Load more" latencies in nanoseconds
+     */
+    private record Run(int fetchSize, int loadMores, long backendGets, long[] latencies) {
+
+        @Override
+        public String toString() {
+            return String.format("fetch-size=%-4d load-more=%-5d backend GETs=%-5d (%.2f per session)  p50=%7.2fms  p99=%7.2fms",
+                    fetchSize, loadMores, backendGets, backendGets / (double) (USERS * SESSIONS_PER_USER),
+                    percentile(0.50), percentile(0.99));
+        }
+
+        double percentile(double quantile) {
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(quantile * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    @Test
+    void backendFetchSizeCutsBackendCallsPerLoadMore() throws Exception {
+        Run perPage = run(UI_PAGE_SIZE);
+        Run batched = run(100);
+        System.out.println(perPage);
+        System.out.println(batched);
+        System.out.printf("Backend calls reduced %.1fx, p50 Load more %.2fms -> %.2fms%n",
+                perPage.backendGets() / (double) batched.backendGets(), perPage.percentile(0.5), batched.percentile(0.5));
+
+        assertThat(batched.loadMores()).isEqualTo(perPage.loadMores());
+        assertThat(batched.backendGets()).isLessThan(perPage.backendGets() / 5);
+    }
+
+    private static Run run(int fetchSize) throws Exception {
+        try (StubBackend backend = new StubBackend().latency(BACKEND_LATENCY).recordsPerEmail(1000);
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(TimetrackerFrontendApplication.class)
+                     .run("--server.port=0",
+                             "--timetracker.backend.url=" + backend.url(),
+                             "--timetracker.length=" + UI_PAGE_SIZE,
+                             "--timetracker.backend.fetch-size=" + fetchSize,
+                             "--timetracker.prefetch.depth=0")) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/timetracker";
+            ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+            ExecutorService executor = Executors.newFixedThreadPool(USERS);
+            try {
+                List<Future<?>> users = new ArrayList<>();
+                for (int user = 0; user < USERS; user++) {
+                    users.add(executor.submit(() -> {
+                        for (int session = 0; session < SESSIONS_PER_USER; session++) {
+                            scroll(base, latencies);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> user : users) {
+                    user.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Run(fetchSize, sorted.length, backend.gets(), sorted);
+        }
+    }
+
+    /**
+     * Opens the records of a new email and presses "Load more" until the scrolled records are shown.
+     * @param base the base URL of the frontend
+     * @param latencies the queue collecting the "Load more" latencies
+     */
+    private static void scroll(String base, ConcurrentLinkedQueue<Long> latencies) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .cookieHandler(new CookieManager())
+                .build();
+        String form = "email=scroll" + emails.incrementAndGet() + "%40example.com&timezone=%2B02%3A00";
+        send(client, HttpRequest.newBuilder(URI.create(base + "/view-records"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build());
+        for (int shown = UI_PAGE_SIZE; shown < SCROLLED_RECORDS; shown += UI_PAGE_SIZE) {
+            long start = System.nanoTime();
+            send(client, HttpRequest.newBuilder(URI.create(base + "/api/records")).GET().build());
+            latencies.add(System.nanoTime() - start);
+        }
+    }
+
+    private static void send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode() + " from " + request.uri());
+        }
+    }
+}
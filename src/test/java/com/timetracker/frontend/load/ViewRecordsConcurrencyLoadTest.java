@@ -0,0 +1,101 @@
+package com.timetracker.frontend.load;
+
+import com.timetracker.frontend.backend.StubBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds how many concurrent "view records" sessions the frontend sustains against a
+ * backend answering in 100ms, in the threading mode the test runs with. Every request
+ * searches a new email, so each one blocks on a backend round trip.
+ * Platform threads: mvn test -Pload-test -Dtest=ViewRecordsConcurrencyLoadTest
+ * Virtual threads (Java 21+): add -Dspring.threads.virtual.enabled=true
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "timetracker.prefetch.depth=0",
+        "timetracker.backend.pool.max-total=4000",
+        "timetracker.backend.pool.max-per-route=4000",
+        "timetracker.backend.read-timeout=30s",
+        "timetracker.backend.total-timeout=30s"
+})
+class ViewRecordsConcurrencyLoadTest {
+
+    private static final Duration BACKEND_LATENCY = Duration.ofMillis(100);
+
+    // A concurrency level is sustained while its p99 stays within this multiple of the backend latency
+    private static final double SUSTAINED_P99_FACTOR = 2.0;
+
+    private static final StubBackend backend = startBackend();
+
+    private static final AtomicLong emails = new AtomicLong();
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @DynamicPropertySource
+    static void backendProperties(DynamicPropertyRegistry registry) {
+        registry.add("timetracker.backend.url", backend::url);
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        backend.close();
+    }
+
+    @Test
+    void maxSustainableViewRecordsSessions() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + port + "/timetracker/view-records");
+        String mode = virtualThreads && Runtime.version().feature() >= 21 ? "virtual threads" : "platform threads";
+
+        int sustained = 0;
+        for (int concurrency : new int[]{50, 100, 200, 400, 800, 1600}) {
+            LoadDriver.Result result = LoadDriver.run("view-records, " + mode, concurrency, Duration.ofSeconds(5),
+                    () -> viewRecords(client, uri));
+            System.out.println(result);
+            if (result.errors() == 0 && result.p99Millis() <= SUSTAINED_P99_FACTOR * BACKEND_LATENCY.toMillis()) {
+                sustained = concurrency;
+            }
+        }
+        System.out.printf("Max sustainable concurrent sessions with %s: %d%n", mode, sustained);
+    }
+
+    private static Object viewRecords(HttpClient client, URI uri) throws IOException, InterruptedException {
+        String form = "email=user" + emails.incrementAndGet() + "%40example.com&timezone=%2B02%3A00";
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode());
+        }
+        return response;
+    }
+
+    private static StubBackend startBackend() {
+        try {
+            return new StubBackend().latency(BACKEND_LATENCY).recordsPerEmail(50);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
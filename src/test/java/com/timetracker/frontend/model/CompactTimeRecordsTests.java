@@ -0,0 +1,95 @@
+package com.timetracker.frontend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactTimeRecordsTests {
+
+    @Test
+    void compactedRecordsReadBackEqual() {
+        ZonedDateTime start = ZonedDateTime.of(2024, 3, 31, 1, 30, 0, 250_000_000, ZoneId.of("Europe/Rome"));
+        List<TimeRecord> records = List.of(
+                new TimeRecord("alice@example.com", start, start.plusHours(2)),
+                new TimeRecord("alice@example.com", start.withZoneSameInstant(ZoneOffset.ofHours(-5)), start.plusDays(1)),
+                new TimeRecord("bob@example.com", start.withZoneSameInstant(ZoneOffset.UTC), start.plusMinutes(5)));
+
+        List<TimeRecord> compact = CompactTimeRecords.of(records);
+
+        assertThat(compact).isInstanceOf(CompactTimeRecords.class).hasSize(3);
+        for (int i = 0; i < records.size(); i++) {
+            assertThat(compact.get(i).getEmail()).isEqualTo(records.get(i).getEmail());
+            assertThat(compact.get(i).getStart()).isEqualTo(records.get(i).getStart());
+            assertThat(compact.get(i).getEnd()).isEqualTo(records.get(i).getEnd());
+            assertThat(((CompactTimeRecords) compact).startEpochMilli(i))
+                    .isEqualTo(records.get(i).getStart().toInstant().toEpochMilli());
+        }
+    }
+
+    @Test
+    void recordsWithSubMillisecondPrecisionAreLeftAsTheyAre() {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 1, ZoneOffset.UTC);
+        List<TimeRecord> records = List.of(new TimeRecord("alice@example.com", start, start.plusHours(8)));
+
+        assertThat(CompactTimeRecords.of(records)).isSameAs(records);
+    }
+
+    @Test
+    void pageOfOneEmailWeighsFarLessThanItsRecords() {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.ofHours(2));
+        List<TimeRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(new TimeRecord("alice@example.com", start.plusDays(i), start.plusDays(i).plusHours(8)));
+        }
+
+        CompactTimeRecords compact = (CompactTimeRecords) CompactTimeRecords.of(records);
+
+        // Twenty bytes per record for the columns, the email and headers once per page
+        assertThat(compact.weight()).isBetween(2000L, 2300L);
+    }
+
+    @Test
+    void pageMixingRecordsWithAndWithoutEmailIsWeighed() {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+        List<TimeRecord> records = new ArrayList<>();
+        records.add(new TimeRecord(null, start, start.plusHours(8)));
+        records.add(new TimeRecord("alice@example.com", start.plusDays(1), start.plusDays(1).plusHours(8)));
+        records.add(new TimeRecord(null, start.plusDays(2), start.plusDays(2).plusHours(8)));
+
+        CompactTimeRecords compact = (CompactTimeRecords) CompactTimeRecords.of(records);
+
+        assertThat(compact).extracting(TimeRecord::getEmail).containsExactly(null, "alice@example.com", null);
+        // Only the one email present is counted beyond the columns and headers
+        assertThat(compact.weight()).isEqualTo(48 + 4 * 16 + 3 * 20 + 16 + 3 * 4 + 40 + "alice@example.com".length());
+    }
+
+    @Test
+    void pagesAreJoinedAndSlicedWithoutLosingRecords() {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneId.of("Europe/Rome"));
+        CompactTimeRecords alice = (CompactTimeRecords) CompactTimeRecords.of(List.of(
+                new TimeRecord("alice@example.com", start, start.plusHours(8)),
+                new TimeRecord("alice@example.com", start.plusDays(1), start.plusDays(1).plusHours(8))));
+        CompactTimeRecords bob = (CompactTimeRecords) CompactTimeRecords.of(List.of(
+                new TimeRecord("bob@example.com", start.withZoneSameInstant(ZoneOffset.UTC), start.plusHours(1))));
+
+        // Bob is put over the second record of Alice
+        CompactTimeRecords joined = new CompactTimeRecords.Builder(3).put(0, alice).put(1, bob).put(2, alice.slice(1, 2)).build();
+
+        assertThat(joined).extracting(TimeRecord::getEmail)
+                .containsExactly("alice@example.com", "bob@example.com", "alice@example.com");
+        assertThat(joined.get(1).getStart()).isEqualTo(bob.get(0).getStart());
+        assertThat(joined.get(2).getEnd()).isEqualTo(alice.get(1).getEnd());
+
+        // A slice of a single email weighs as a page of that email, not of its source
+        CompactTimeRecords first = joined.slice(0, 1);
+        assertThat(first).hasSize(1);
+        assertThat(first.get(0).getStart()).isEqualTo(start);
+        assertThat(first.weight()).isEqualTo(alice.slice(0, 1).weight());
+    }
+}
@@ -0,0 +1,32 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.RecordsCursor;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CursorServiceTests {
+
+    private final CursorService cursorService = new CursorService("secret");
+
+    @Test
+    void tokenRoundTripsOnAnyInstanceSharingTheSecret() {
+        RecordsCursor cursor = new RecordsCursor("alice@example.com", "+02:00", 30);
+
+        String token = cursorService.encode(cursor);
+
+        assertThat(new CursorService("secret").decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreRejected() {
+        String token = cursorService.encode(new RecordsCursor("alice@example.com", "+02:00", 30));
+        String forged = new CursorService("secret").encode(new RecordsCursor("alice@example.com", "+02:00", 40))
+                .substring(0, token.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertThatIllegalArgumentException().isThrownBy(() -> cursorService.decode(forged));
+        assertThatIllegalArgumentException().isThrownBy(() -> new CursorService("other").decode(token));
+        assertThatIllegalArgumentException().isThrownBy(() -> cursorService.decode("not-a-cursor"));
+    }
+}
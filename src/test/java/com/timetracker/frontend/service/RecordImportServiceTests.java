@@ -0,0 +1,149 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.ImportResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RecordImportServiceTests {
+
+    @Test
+    void importsValidRowsAndReportsInvalidOnes() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        TimeTrackerService timeTrackerService = spy(newTimeTrackerService(backend));
+        RecordImportService service = new RecordImportService(timeTrackerService, new SimpleAsyncTaskExecutor(), 4);
+
+        String csv = """
+                email,start,end
+                alice@example.com,2024-01-01T08:00,2024-01-01T16:00
+                bob@example.com,2024-01-02T09:00,2024-01-02T17:00,+02:00
+                alice@example.com,not a date,2024-01-01T16:00
+                alice@example.com,2024-01-03T16:00,2024-01-03T08:00
+
+                ,2024-01-01T08:00,2024-01-01T16:00
+                "carol, jr@example.com",2024-01-04T08:00,2024-01-04T12:00
+                """;
+        ImportResult result = service.importRecords(new StringReader(csv), "UTC");
+
+        assertThat(result.rows()).isEqualTo(6);
+        assertThat(result.imported()).isEqualTo(3);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(result.errors()).extracting(ImportResult.RowError::row).containsExactly(4L, 5L, 7L);
+        assertThat(result.errors().get(1).message()).startsWith("Invalid date range");
+        assertThat(backend.emails).containsExactlyInAnyOrder("alice@example.com", "bob@example.com", "carol, jr@example.com");
+        assertThat(backend.starts).contains("02.01.2024 07:00");
+
+        // Each imported email is invalidated once, however many of its rows were posted
+        verify(timeTrackerService, times(1)).invalidateCacheForEmail("alice@example.com");
+        verify(timeTrackerService, times(1)).invalidateCacheForEmail("bob@example.com");
+    }
+
+    @Test
+    void postsAtMostParallelismRecordsAtOnce() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        backend.latencyMillis = 20;
+        RecordImportService service = new RecordImportService(
+                newTimeTrackerService(backend), new SimpleAsyncTaskExecutor(), 3);
+
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            csv.append("user").append(i % 5).append("@example.com,2024-01-01T08:00,2024-01-01T16:00\n");
+        }
+        ImportResult result = service.importRecords(new StringReader(csv.toString()), "UTC");
+
+        assertThat(result.imported()).isEqualTo(30);
+        assertThat(backend.maxInFlight.get()).isBetween(2, 3);
+        assertThat(result.recordsPerSecond()).isPositive();
+    }
+
+    @Test
+    void backendFailuresAreReportedPerRow() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        backend.failingEmail = "bob@example.com";
+        RecordImportService service = new RecordImportService(
+                newTimeTrackerService(backend), new SimpleAsyncTaskExecutor(), 2);
+
+        ImportResult result = service.importRecords(new StringReader("""
+                alice@example.com,2024-01-01T08:00,2024-01-01T16:00
+                bob@example.com,2024-01-01T08:00,2024-01-01T16:00
+                """), "UTC");
+
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.errors()).containsExactly(new ImportResult.RowError(2, "Backend call failed: backend down"));
+    }
+
+    @Test
+    void headerAfterAByteOrderMarkIsSkipped() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        RecordImportService service = new RecordImportService(
+                newTimeTrackerService(backend), new SimpleAsyncTaskExecutor(), 2);
+
+        ImportResult result = service.importRecords(new StringReader("""
+                \uFEFFemail,start,end
+                alice@example.com,2024-01-01T08:00,2024-01-01T16:00
+                """), "UTC");
+
+        assertThat(result.rows()).isEqualTo(1);
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.errors()).isEmpty();
+    }
+
+    @Test
+    void quotedFieldsMayHoldSeparatorsAndQuotes() {
+        assertThat(RecordImportService.parseCsvLine("\"a,\"\"b\"\"\",c,")).containsExactly("a,\"b\"", "c", "");
+    }
+
+    private static TimeTrackerService newTimeTrackerService(RestTemplate restTemplate) {
+        return new TimeTrackerService(restTemplate, new SimpleMeterRegistry(), new SimpleAsyncTaskExecutor(),
+                RecordPageStore.disabled(), DataSize.ofMegabytes(64), DataSize.ofMegabytes(16),
+                Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofHours(1), new ExportExecutors(4), new SummaryExecutor(4));
+    }
+
+    /**
+     * Backend stand-in recording the posted records and the most posts seen in flight at once.
+     */
+    private static class StubRestTemplate extends RestTemplate {
+        final List<String> emails = new CopyOnWriteArrayList<>();
+        final List<String> starts = new CopyOnWriteArrayList<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        volatile long latencyMillis;
+        volatile String failingEmail;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T postForObject(String url, Object request, Class<T> responseType, Object... uriVariables) {
+            MultiValueMap<String, String> form = (MultiValueMap<String, String>) request;
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMillis);
+                if (form.getFirst("email").equals(failingEmail)) {
+                    throw new ResourceAccessException("backend down");
+                }
+                emails.add(form.getFirst("email"));
+                starts.add(form.getFirst("start"));
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecordJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unacknowledgedEntriesAreReplayedAfterReopening() throws Exception {
+        Path path = directory.resolve("records.journal");
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            journal.append(record("alice@example.com", 8));
+            journal.append(record("bob@example.com", 9));
+            journal.append(record("carol@example.com", 10));
+
+            List<RecordJournal.Entry> sent = journal.read(1);
+            journal.acknowledge(sent.get(0).end(), 1);
+        }
+
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            assertThat(journal.pending()).isEqualTo(2);
+            List<RecordJournal.Entry> entries = journal.read(10);
+            assertThat(entries).extracting(entry -> entry.record().getEmail())
+                    .containsExactly("bob@example.com", "carol@example.com");
+            assertThat(entries.get(0).record().getStart()).isEqualTo(record("bob@example.com", 9).getStart());
+        }
+    }
+
+    @Test
+    void tornTailIsCutOffOnRecovery() throws Exception {
+        Path path = directory.resolve("records.journal");
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            journal.append(record("alice@example.com", 8));
+            journal.append(record("bob@example.com", 9));
+        }
+
+        // Lose the last bytes of the second entry, as a crash mid-write would
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            assertThat(journal.pending()).isEqualTo(1);
+            assertThat(journal.read(10)).extracting(entry -> entry.record().getEmail())
+                    .containsExactly("alice@example.com");
+
+            // New entries go right after the last intact one
+            journal.append(record("carol@example.com", 10));
+            assertThat(journal.read(10)).hasSize(2);
+        }
+    }
+
+    @Test
+    void fullyAcknowledgedJournalIsTruncated() throws Exception {
+        Path path = directory.resolve("records.journal");
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            journal.append(record("alice@example.com", 8));
+            journal.append(record("bob@example.com", 9));
+
+            List<RecordJournal.Entry> entries = journal.read(10);
+            journal.acknowledge(entries.get(1).end(), 2);
+
+            assertThat(journal.pending()).isZero();
+            assertThat(journal.read(10)).isEmpty();
+            assertThat(Files.size(path)).isZero();
+        }
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            assertThat(journal.pending()).isZero();
+        }
+    }
+
+    @Test
+    void acknowledgedPrefixPastTheThresholdIsCompactedAway() throws Exception {
+        Path path = directory.resolve("records.journal");
+        try (RecordJournal journal = new RecordJournal(path, 1)) {
+            journal.append(record("ann@example.com", 8));
+            journal.append(record("bob@example.com", 9));
+            journal.append(record("cat@example.com", 10));
+            long entryBytes = Files.size(path) / 3;
+
+            // Entries of the same length; the backend never catches up, so the journal is never empty
+            List<RecordJournal.Entry> sent = journal.read(2);
+            journal.acknowledge(sent.get(1).end(), 2);
+            assertThat(Files.size(path)).isEqualTo(entryBytes);
+
+            journal.append(record("dan@example.com", 11));
+            assertThat(journal.read(10)).extracting(entry -> entry.record().getEmail())
+                    .containsExactly("cat@example.com", "dan@example.com");
+        }
+        try (RecordJournal journal = new RecordJournal(path, 1)) {
+            assertThat(journal.pending()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void compactionInterruptedBeforeCuttingTheJournalIsCompletedOnRecovery() throws Exception {
+        Path path = directory.resolve("records.journal");
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            journal.append(record("ann@example.com", 8));
+            journal.append(record("bob@example.com", 9));
+        }
+        long entryBytes = Files.size(path) / 2;
+
+        // Bob copied over Ann and the compacted length checkpointed, as a crash right after would leave it
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel checkpoint = FileChannel.open(directory.resolve("records.journal.ack"),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer bob = ByteBuffer.allocate((int) entryBytes);
+            channel.read(bob, entryBytes);
+            channel.write(bob.flip(), 0);
+            checkpoint.write(ByteBuffer.allocate(Long.BYTES).putLong(0, -entryBytes - 1), 0);
+        }
+
+        try (RecordJournal journal = new RecordJournal(path, 1024 * 1024)) {
+            assertThat(journal.pending()).isEqualTo(1);
+            assertThat(journal.read(10)).extracting(entry -> entry.record().getEmail())
+                    .containsExactly("bob@example.com");
+            assertThat(Files.size(path)).isEqualTo(entryBytes);
+        }
+    }
+
+    private static TimeRecord record(String email, int hour) {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, hour, 0, 0, 0, ZoneOffset.ofHours(2));
+        return new TimeRecord(email, start, start.plusHours(4));
+    }
+}
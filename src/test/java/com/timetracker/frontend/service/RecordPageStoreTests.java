@@ -0,0 +1,107 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecordPageStoreTests {
+
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedPagesAreLoadedByTheNextStore() {
+        RecordPageStore store = newStore(DataSize.ofMegabytes(1));
+        RecordsCacheKey key = new RecordsCacheKey("alice@example.com", 10, 10);
+        store.put(key, page("alice@example.com", 3), store.stamp("alice@example.com"));
+
+        Map<RecordsCacheKey, RecordPageStore.StoredPage> pages = newStore(DataSize.ofMegabytes(1)).load(Long.MAX_VALUE, MAX_AGE);
+        assertThat(pages).containsOnlyKeys(key);
+        assertThat(pages.get(key).records()).hasSize(3);
+        assertThat(pages.get(key).records().get(0).getStart()).isEqualTo(page("alice@example.com", 1).get(0).getStart());
+        assertThat(pages.get(key).storedAt()).isBetween(Instant.now().minusSeconds(60), Instant.now());
+    }
+
+    @Test
+    void invalidationDeletesOnlyThePagesOfTheEmail() {
+        RecordPageStore store = newStore(DataSize.ofMegabytes(1));
+        store.put(new RecordsCacheKey("bob@x", 0, 10), page("bob@x", 2), store.stamp("bob@x"));
+        store.put(new RecordsCacheKey("bob@x", 10, 10), page("bob@x", 2), store.stamp("bob@x"));
+        store.put(new RecordsCacheKey("bob@x.com", 0, 10), page("bob@x.com", 2), store.stamp("bob@x.com"));
+
+        store.invalidate("bob@x");
+
+        assertThat(newStore(DataSize.ofMegabytes(1)).load(Long.MAX_VALUE, MAX_AGE))
+                .containsOnlyKeys(new RecordsCacheKey("bob@x.com", 0, 10));
+    }
+
+    @Test
+    void pageReadBeforeAnInvalidationIsNotStored() {
+        RecordPageStore store = newStore(DataSize.ofMegabytes(1));
+        long stamp = store.stamp("alice@example.com");
+        store.invalidate("alice@example.com");
+
+        store.put(new RecordsCacheKey("alice@example.com", 0, 10), page("alice@example.com", 2), stamp);
+
+        assertThat(newStore(DataSize.ofMegabytes(1)).load(Long.MAX_VALUE, MAX_AGE)).isEmpty();
+    }
+
+    @Test
+    void oldestPagesAreDeletedBeyondTheSizeLimit() throws Exception {
+        RecordPageStore store = newStore(DataSize.ofKilobytes(2));
+        for (int i = 0; i < 20; i++) {
+            store.put(new RecordsCacheKey("user" + i + "@example.com", 0, 10), page("user" + i + "@example.com", 5),
+                    store.stamp("user" + i + "@example.com"));
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(2048);
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum())
+                    .isEqualTo(store.size());
+        }
+        Map<RecordsCacheKey, RecordPageStore.StoredPage> pages = newStore(DataSize.ofKilobytes(2)).load(Long.MAX_VALUE, MAX_AGE);
+        assertThat(pages).containsKey(new RecordsCacheKey("user19@example.com", 0, 10))
+                .doesNotContainKey(new RecordsCacheKey("user0@example.com", 0, 10));
+    }
+
+    @Test
+    void pagesOlderThanTheMaximumAgeAreNotLoaded() throws Exception {
+        RecordPageStore store = newStore(DataSize.ofMegabytes(1));
+        store.put(new RecordsCacheKey("alice@example.com", 0, 10), page("alice@example.com", 2), store.stamp("alice@example.com"));
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+            }
+        }
+
+        assertThat(newStore(DataSize.ofMegabytes(1)).load(Long.MAX_VALUE, MAX_AGE)).isEmpty();
+    }
+
+    private RecordPageStore newStore(DataSize maxSize) {
+        return new RecordPageStore(true, directory.toString(), maxSize, new SyncTaskExecutor(), new SimpleMeterRegistry());
+    }
+
+    private static List<TimeRecord> page(String email, int size) {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.ofHours(2));
+        return Collections.nCopies(size, new TimeRecord(email, start, start.plusHours(8)));
+    }
+}
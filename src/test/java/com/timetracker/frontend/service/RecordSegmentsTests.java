@@ -0,0 +1,81 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.CompactTimeRecords;
+import com.timetracker.frontend.model.TimeRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecordSegmentsTests {
+
+    @Test
+    void reportsHolesBetweenHeldRanges() {
+        RecordSegments segments = new RecordSegments();
+        segments.add(0, records(0, 10));
+        segments.add(20, records(20, 5));
+
+        assertThat(segments.missing(5, 30)).containsExactly(
+                new RecordSegments.Gap(10, 10), new RecordSegments.Gap(25, 10));
+        assertThat(segments.missing(0, 10)).isEmpty();
+    }
+
+    @Test
+    void mergesTouchingAndOverlappingRanges() {
+        RecordSegments segments = new RecordSegments();
+        segments.add(0, records(0, 10));
+        segments.add(20, records(20, 10));
+        segments.add(8, records(8, 12));
+
+        assertThat(segments.missing(0, 30)).isEmpty();
+        assertThat(segments.size()).isEqualTo(30);
+        assertThat(segments.slice(5, 20)).extracting(TimeRecord::getEmail)
+                .containsExactlyElementsOf(emails(5, 20));
+    }
+
+    @Test
+    void sliceStopsAtFirstHole() {
+        RecordSegments segments = new RecordSegments();
+        segments.add(0, records(0, 10));
+        segments.add(15, records(15, 10));
+
+        assertThat(segments.slice(5, 20)).hasSize(5);
+        assertThat(segments.slice(10, 5)).isEmpty();
+    }
+
+    @Test
+    void rangesAreHeldAndSlicedAsColumns() {
+        RecordSegments segments = new RecordSegments();
+        segments.add(0, records(0, 10));
+        segments.add(10, records(10, 10));
+
+        List<TimeRecord> window = segments.slice(5, 10);
+        assertThat(window).isInstanceOf(CompactTimeRecords.class)
+                .extracting(TimeRecord::getEmail).containsExactlyElementsOf(emails(5, 10));
+
+        // Weighed in bytes of columns, far below a record object per record
+        assertThat(segments.weight()).isEqualTo(CompactTimeRecords.weightOf(segments.slice(0, 20)));
+        assertThat(segments.weight()).isLessThan(20L * 100);
+    }
+
+    private static List<TimeRecord> records(int offset, int length) {
+        ZonedDateTime time = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+        List<TimeRecord> records = new ArrayList<>();
+        for (String email : emails(offset, length)) {
+            records.add(new TimeRecord(email, time, time));
+        }
+        return records;
+    }
+
+    private static List<String> emails(int offset, int length) {
+        List<String> emails = new ArrayList<>();
+        for (int i = offset; i < offset + length; i++) {
+            emails.add("record" + i);
+        }
+        return emails;
+    }
+}
@@ -0,0 +1,80 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecordTotalsTests {
+
+    @Test
+    void recordsAreSplitAtMidnightInTheTimezone() {
+        RecordTotals totals = new RecordTotals(ZoneId.of("America/New_York"));
+
+        // 20:00 to 04:00 UTC is 15:00 to 23:00 in New York, 22:00 to 06:00 UTC is 17:00 to 01:00
+        totals.add(0, 10, List.of(record(1, 20, 8), record(2, 22, 8)));
+
+        assertThat(totals.byDay()).containsExactly(
+                Map.entry(LocalDate.of(2024, 1, 1), 8 * 3600L),
+                Map.entry(LocalDate.of(2024, 1, 2), 7 * 3600L),
+                Map.entry(LocalDate.of(2024, 1, 3), 3600L));
+        assertThat(totals.byWeek()).containsExactly(Map.entry(LocalDate.of(2024, 1, 1), 16 * 3600L));
+    }
+
+    @Test
+    void overlappingPagesAreCountedOnce() {
+        RecordTotals totals = new RecordTotals(ZoneOffset.UTC);
+
+        totals.add(0, 3, List.of(record(1, 8, 1), record(2, 8, 1), record(3, 8, 1)));
+        totals.add(2, 3, List.of(record(3, 8, 1), record(8, 8, 2)));
+
+        assertThat(totals.byDay().values()).containsExactly(3600L, 3600L, 3600L, 7200L);
+        assertThat(totals.isComplete()).isTrue();
+        assertThat(totals.nextMissing(0)).isEqualTo(4);
+        assertThat(totals.isPastEnd(4)).isTrue();
+    }
+
+    @Test
+    void totalsAreCompleteOnlyOnceEveryRecordBeforeTheEndIsCounted() {
+        RecordTotals totals = new RecordTotals(ZoneOffset.UTC);
+
+        totals.add(10, 10, List.of(record(1, 8, 1)));
+        totals.add(20, 10, List.of());
+        assertThat(totals.isComplete()).isFalse();
+        assertThat(totals.nextMissing(0)).isZero();
+        assertThat(totals.isPastEnd(11)).isTrue();
+
+        totals.add(0, 10, List.of(record(2, 8, 1), record(2, 9, 1), record(2, 10, 1), record(2, 11, 1),
+                record(2, 12, 1), record(2, 13, 1), record(2, 14, 1), record(2, 15, 1), record(2, 16, 1), record(2, 17, 1)));
+        assertThat(totals.isComplete()).isTrue();
+    }
+
+    @Test
+    void endSeenTooLongAgoIsLookedPastAgain() {
+        RecordTotals totals = new RecordTotals(ZoneOffset.UTC);
+        totals.add(0, 10, List.of(record(1, 8, 1), record(2, 8, 1)));
+        assertThat(totals.isComplete()).isTrue();
+
+        totals.forgetEndSeenBefore(System.nanoTime() + 1);
+        assertThat(totals.isComplete()).isFalse();
+        assertThat(totals.nextMissing(0)).isEqualTo(2);
+
+        // A record added past the old end moves it
+        totals.add(2, 10, List.of(record(3, 8, 2)));
+        assertThat(totals.isComplete()).isTrue();
+        assertThat(totals.isPastEnd(3)).isTrue();
+        assertThat(totals.byDay().values()).containsExactly(3600L, 3600L, 7200L);
+    }
+
+    private static TimeRecord record(int day, int hour, int hours) {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, day, hour, 0, 0, 0, ZoneOffset.UTC);
+        return new TimeRecord("alice@example.com", start, start.plusHours(hours));
+    }
+}
@@ -0,0 +1,55 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import com.timetracker.frontend.util.DateTimeUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestClientException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class TimeRecordArrayReaderTests {
+
+    private final TimeRecordArrayReader reader = new TimeRecordArrayReader();
+
+    @Test
+    void nullElementsAreSkippedAndUnknownFieldsIgnored() throws Exception {
+        List<TimeRecord> records = reader.extractData(response("""
+                [null,
+                 {"id":7,"email":"alice@example.com","start":"2024-01-01T08:00:00.000+0100",
+                  "tags":{"a":[1,2]},"end":"2024-01-01T16:00:00.000+0100"},
+                 null,
+                 {"end":"2024-01-02T16:00:00.000+0000","start":"2024-01-02T08:00:00.000+0000","email":"bob@example.com"}]
+                """));
+
+        assertThat(records).extracting(TimeRecord::getEmail).containsExactly("alice@example.com", "bob@example.com");
+        assertThat(records.get(0).getStart())
+                .isEqualTo(DateTimeUtils.parseStringToZonedDateTime("2024-01-01T08:00:00.000+0100"));
+        assertThat(records.get(1).getEnd())
+                .isEqualTo(DateTimeUtils.parseStringToZonedDateTime("2024-01-02T16:00:00.000+0000"));
+    }
+
+    @Test
+    void emptyOrNullBodyIsNoRecords() throws Exception {
+        assertThat(reader.extractData(response(""))).isEmpty();
+        assertThat(reader.extractData(response("null"))).isEmpty();
+        assertThat(reader.extractData(response("[]"))).isEmpty();
+    }
+
+    @Test
+    void malformedResponsesFailAsClientErrors() {
+        for (String json : new String[]{"{\"email\":\"a@example.com\"}", "[1]", "[{\"email\":\"a@example.com\"}]",
+                "[{\"email\":\"a\",\"start\":\"yesterday\",\"end\":\"2024-01-02T16:00:00.000+0000\"}]", "[{"}) {
+            assertThatExceptionOfType(RestClientException.class).isThrownBy(() -> reader.extractData(response(json)));
+        }
+    }
+
+    private static MockClientHttpResponse response(String json) {
+        return new MockClientHttpResponse(json.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+    }
+}
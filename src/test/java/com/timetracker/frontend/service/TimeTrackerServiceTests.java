@@ -0,0 +1,652 @@
+package com.timetracker.frontend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.timetracker.frontend.model.CompactTimeRecords;
+import com.timetracker.frontend.model.RecordPage;
+import com.timetracker.frontend.model.RecordSummary;
+import com.timetracker.frontend.model.TimeRecord;
+import com.timetracker.frontend.util.DateTimeUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class TimeTrackerServiceTests {
+
+    private static final String EMAIL = "alice@example.com";
+
+    @Test
+    void concurrentMissesForSamePageShareOneBackendCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubRestTemplate backend = new StubRestTemplate(release);
+        TimeTrackerService service = newService(backend);
+
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            CountDownLatch started = new CountDownLatch(callers);
+            List<Future<List<TimeRecord>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return service.getRecordsByEmail(EMAIL, 0, 10);
+                }));
+            }
+
+            // Hold the first backend call open until every caller has asked for the page
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(200);
+            release.countDown();
+
+            List<TimeRecord> first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<List<TimeRecord>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+            assertThat(first).hasSize(10);
+            assertThat(backend.calls.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void emptyPagesAreNotCached() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 0;
+        TimeTrackerService service = newService(backend);
+
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).isEmpty();
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).isEmpty();
+        assertThat(backend.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void loadFailingWithAnErrorDoesNotBlockLaterReads() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        backend.error = new NoClassDefFoundError("simulated");
+        assertThatThrownBy(() -> service.getRecordsByEmail(EMAIL, 0, 10)).isInstanceOf(NoClassDefFoundError.class);
+
+        backend.error = null;
+        List<TimeRecord> records = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> service.getRecordsByEmail(EMAIL, 0, 10));
+        assertThat(records).hasSize(10);
+        assertThat(backend.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidationOnlyEvictsPagesOfTheExactEmail() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        service.getRecordsByEmail("bob@x", 0, 10);
+        service.getRecordsByEmail("bob@x", 10, 10);
+        service.getRecordsByEmail("bob@x.com", 0, 10);
+        assertThat(backend.calls.get()).isEqualTo(3);
+
+        service.invalidateCacheForEmail("bob@x");
+
+        // The prefix-sharing email keeps its page, the invalidated email reloads both
+        service.getRecordsByEmail("bob@x.com", 0, 10);
+        assertThat(backend.calls.get()).isEqualTo(3);
+        service.getRecordsByEmail("bob@x", 0, 10);
+        service.getRecordsByEmail("bob@x", 10, 10);
+        assertThat(backend.calls.get()).isEqualTo(5);
+    }
+
+    @Test
+    void prefetchedPageIsServedFromCacheAndCountedAsHit() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        service.prefetchRecordsByEmail(EMAIL, 0, 10);
+        awaitCalls(backend, 2);
+
+        service.getRecordsByEmail(EMAIL, 10, 10);
+        assertThat(backend.calls.get()).isEqualTo(2);
+        assertThat(service.getPrefetchHits()).isEqualTo(1);
+        assertThat(service.getWastedPrefetches()).isZero();
+    }
+
+    @Test
+    void prefetchOfRecordsAlreadyHeldIsNoHit() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        // The second page is held in the segments after the first read
+        service.getRecordsByEmail(EMAIL, 0, 20);
+        service.prefetchRecordsByEmail(EMAIL, 0, 10);
+        Thread.sleep(50);
+
+        service.getRecordsByEmail(EMAIL, 10, 10);
+        assertThat(backend.calls.get()).isEqualTo(1);
+        assertThat(service.getPrefetchHits()).isZero();
+    }
+
+    @Test
+    void prefetchedPageInvalidatedBeforeReadIsCountedAsWasted() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        service.prefetchRecordsByEmail(EMAIL, 0, 10);
+        awaitCalls(backend, 1);
+        Thread.sleep(50);
+        service.invalidateCacheForEmail(EMAIL);
+
+        assertThat(service.getPrefetchHits()).isZero();
+        assertThat(service.getWastedPrefetches()).isEqualTo(1);
+    }
+
+    @Test
+    void windowOverlappingFetchedRecordsOnlyFetchesTheGap() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        service.getRecordsByEmail(EMAIL, 20, 10);
+
+        // A window inside the held records needs no call, one spanning a hole fetches just the hole
+        assertThat(service.getRecordsByEmail(EMAIL, 2, 5)).hasSize(5);
+        assertThat(backend.calls.get()).isEqualTo(2);
+        assertThat(service.getRecordsByEmail(EMAIL, 5, 20)).hasSize(20);
+        assertThat(backend.calls.get()).isEqualTo(3);
+        assertThat(backend.urls.get(2)).endsWith("offset=10&length=10");
+
+        // The merged range now answers a different page size entirely from memory
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 30)).hasSize(30);
+        assertThat(backend.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void oneBackendCallOfTheFetchSizeFillsSeveralPages() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 45;
+        TimeTrackerService service = newService(backend);
+        ReflectionTestUtils.setField(service, "fetchSize", 30);
+
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).hasSize(10);
+        assertThat(service.getRecordsByEmail(EMAIL, 10, 10)).hasSize(10);
+        assertThat(service.getRecordsByEmail(EMAIL, 20, 10)).hasSize(10);
+        assertThat(backend.urls).singleElement().asString().endsWith("offset=0&length=30");
+
+        // The last pages come back short, so the caller still sees where the records end
+        assertThat(service.getRecordsByEmail(EMAIL, 30, 10)).hasSize(10);
+        assertThat(service.getRecordsByEmail(EMAIL, 40, 10)).hasSize(5);
+        assertThat(service.getRecordsByEmail(EMAIL, 50, 10)).isEmpty();
+        assertThat(backend.urls).hasSize(4);
+        assertThat(backend.urls.get(1)).endsWith("offset=30&length=30");
+        assertThat(backend.urls.get(2)).endsWith("offset=45&length=30");
+    }
+
+    @Test
+    void pagesAreCachedInCompactForm() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        List<TimeRecord> records = service.getRecordsByEmail(EMAIL, 0, 10);
+
+        assertThat(records).isInstanceOf(CompactTimeRecords.class).hasSize(10);
+        assertThat(records.get(0).getEmail()).isEqualTo(EMAIL);
+        assertThat(records.get(0).getStart()).isEqualTo(DateTimeUtils.parseStringToZonedDateTime("2024-01-01T08:00:00.000+0000"));
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).isSameAs(records);
+    }
+
+    @Test
+    void pageHashDependsOnlyOnTheRecords() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        RecordPage page = service.getRecordsPage(EMAIL, 0, 10);
+        List<TimeRecord> plain = new ArrayList<>(page.records());
+
+        assertThat(service.getRecordsPage(EMAIL, 0, 10).contentHash()).isEqualTo(page.contentHash());
+        assertThat(TimeTrackerService.contentHash(plain)).isEqualTo(page.contentHash());
+        TimeRecord first = plain.get(0);
+        plain.set(0, new TimeRecord(first.getEmail(), first.getStart(), first.getEnd().plusSeconds(1)));
+        assertThat(TimeTrackerService.contentHash(plain)).isNotEqualTo(page.contentHash());
+        assertThat(TimeTrackerService.contentHash(plain.subList(0, 9))).isNotEqualTo(page.contentHash());
+    }
+
+    @Test
+    void cacheLookupsAreRecordedAsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TimeTrackerService service = new TimeTrackerService(
+                new StubRestTemplate(new CountDownLatch(0)), registry, new SyncTaskExecutor(), RecordPageStore.disabled(),
+                DataSize.ofMegabytes(64), DataSize.ofMegabytes(16),
+                Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofHours(1), new ExportExecutors(4), new SummaryExecutor(4));
+
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        service.getRecordsByEmail(EMAIL, 0, 10);
+
+        assertThat(registry.get("cache.gets").tags("cache", "records.pages", "result", "miss").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("cache.gets").tags("cache", "records.pages", "result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("timetracker.prefetch.hits").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void exportFetchesNextPageWhileConsumingCurrentOne() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 25;
+        TimeTrackerService service = newService(backend);
+
+        List<Integer> pageSizes = new ArrayList<>();
+        long exported = service.exportRecordsByEmail(EMAIL, 10, records -> {
+            // The following page is requested before this one is handed over
+            if (records.size() == 10) {
+                try {
+                    awaitCalls(backend, pageSizes.size() + 2);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            pageSizes.add(records.size());
+        });
+
+        assertThat(exported).isEqualTo(25);
+        assertThat(pageSizes).containsExactly(10, 10, 5);
+        // The short last page ends the export without asking for another
+        assertThat(backend.calls.get()).isEqualTo(3);
+        assertThat(backend.urls).allMatch(url -> url.endsWith("length=10"));
+    }
+
+    @Test
+    void exportStopsFetchingWhenConsumerFails() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        assertThatThrownBy(() -> service.exportRecordsByEmail(EMAIL, 10, records -> {
+            throw new IOException("client went away");
+        })).isInstanceOf(IOException.class);
+        assertThat(backend.calls.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void exportBypassesThePageCache() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 5;
+        TimeTrackerService service = newService(backend);
+
+        service.exportRecordsByEmail(EMAIL, 10, records -> { });
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        assertThat(backend.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void pageOlderThanRefreshWindowIsServedAndReloadedInBackground() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend, Duration.ofMillis(50));
+
+        List<TimeRecord> first = service.getRecordsByEmail(EMAIL, 0, 10);
+        Thread.sleep(100);
+
+        // The old page is returned at once while the backend is asked again, not the segments;
+        // the reload is held until then, as a reload done before the read returns is served
+        CountDownLatch reload = new CountDownLatch(1);
+        backend.release = reload;
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).isSameAs(first);
+        awaitCalls(backend, 2);
+        reload.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getRecordsByEmail(EMAIL, 0, 10) == first && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).isNotSameAs(first).hasSize(10);
+    }
+
+    @Test
+    void reloadFinishingAfterAnInvalidationLeavesTheSegmentsEmpty() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend, Duration.ofMillis(50));
+        ReflectionTestUtils.setField(service, "prefetchDepth", 0);
+
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        Thread.sleep(100);
+
+        // A record is created while the reload of the page is fetching the records before it
+        CountDownLatch reload = new CountDownLatch(1);
+        backend.release = reload;
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        awaitCalls(backend, 2);
+        service.invalidateCacheForEmail(EMAIL);
+        reload.countDown();
+        Thread.sleep(200);
+
+        // Another window of the same records is not sliced from records older than the invalidation
+        backend.release = new CountDownLatch(0);
+        service.getRecordsByEmail(EMAIL, 0, 5);
+        assertThat(backend.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void lastKnownPageIsServedStaleWhenBackendFails() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend);
+
+        List<TimeRecord> records = service.getRecordsByEmail(EMAIL, 0, 10);
+        service.invalidateCacheForEmail(EMAIL);
+        backend.failing = true;
+
+        RecordPage page = service.getRecordsPage(EMAIL, 0, 10);
+        assertThat(page.stale()).isTrue();
+        assertThat(page.records()).isSameAs(records);
+
+        // A page never loaded before has nothing to fall back on
+        assertThatThrownBy(() -> service.getRecordsPage(EMAIL, 10, 10)).isInstanceOf(ResourceAccessException.class);
+
+        backend.failing = false;
+        assertThat(service.getRecordsPage(EMAIL, 0, 10).stale()).isFalse();
+    }
+
+    @Test
+    void summaryIsKeptAndOnlyRefetchesRecordsNotSeenSinceInvalidation() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 25;
+        TimeTrackerService service = newService(backend);
+
+        RecordSummary summary = service.summarizeRecordsByEmail(EMAIL, ZoneId.of("Europe/Rome"), ChronoUnit.DAYS);
+        assertThat(summary.buckets()).containsExactly(new RecordSummary.Bucket(LocalDate.of(2024, 1, 1), 200.0));
+        assertThat(summary.totalHours()).isEqualTo(200.0);
+        int calls = backend.calls.get();
+        assertThat(service.summarizeRecordsByEmail(EMAIL, ZoneId.of("Europe/Rome"), ChronoUnit.WEEKS).buckets())
+                .containsExactly(new RecordSummary.Bucket(LocalDate.of(2024, 1, 1), 200.0));
+        assertThat(backend.calls.get()).isEqualTo(calls);
+
+        // After a new record the totals start over, counting the pages browsed since
+        backend.total = 26;
+        service.invalidateCacheForEmail(EMAIL);
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        backend.urls.clear();
+
+        assertThat(service.summarizeRecordsByEmail(EMAIL, ZoneId.of("Europe/Rome"), ChronoUnit.DAYS).totalHours())
+                .isEqualTo(208.0);
+        assertThat(backend.urls).noneMatch(url -> url.contains("offset=0&"));
+    }
+
+    @Test
+    void completeTotalsLookPastTheirEndAgainAfterTheRefreshWindow() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 5;
+        TimeTrackerService service = newService(backend, Duration.ofMillis(50));
+        ZoneId zone = ZoneId.of("Europe/Rome");
+        assertThat(service.summarizeRecordsByEmail(EMAIL, zone, ChronoUnit.DAYS).totalHours()).isEqualTo(40.0);
+
+        // A record added through another instance invalidates nothing here
+        backend.total = 6;
+        assertThat(service.summarizeRecordsByEmail(EMAIL, zone, ChronoUnit.DAYS).totalHours()).isEqualTo(40.0);
+        Thread.sleep(100);
+        backend.urls.clear();
+
+        assertThat(service.summarizeRecordsByEmail(EMAIL, zone, ChronoUnit.DAYS).totalHours()).isEqualTo(48.0);
+        assertThat(backend.urls).noneMatch(url -> url.contains("offset=0&"));
+    }
+
+    @Test
+    void pageFetchedBeforeAnInvalidationIsNotCountedInTheNewTotals() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 5;
+        TimeTrackerService service = newService(backend);
+        ReflectionTestUtils.setField(service, "prefetchDepth", 0);
+        ZoneId zone = ZoneId.of("Europe/Rome");
+        assertThat(service.summarizeRecordsByEmail(EMAIL, zone, ChronoUnit.DAYS).totalHours()).isEqualTo(40.0);
+
+        // A page read is held at the backend while a record is created
+        CountDownLatch held = new CountDownLatch(1);
+        backend.release = held;
+        int calls = backend.calls.get();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<TimeRecord>> read = executor.submit(() -> service.getRecordsByEmail(EMAIL, 0, 10));
+            awaitCalls(backend, calls + 1);
+            backend.total = 6;
+            service.invalidateCacheForEmail(EMAIL);
+            backend.release = new CountDownLatch(0);
+            held.countDown();
+            assertThat(read.get(5, TimeUnit.SECONDS)).hasSize(5);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The five records read before the new one are neither cached nor count in the new totals
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).hasSize(6);
+        assertThat(service.summarizeRecordsByEmail(EMAIL, zone, ChronoUnit.DAYS).totalHours()).isEqualTo(48.0);
+    }
+
+    @Test
+    void pageFetchedDuringAnInvalidationIsFetchedAgainOnTheNextRead() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(1));
+        backend.total = 5;
+        TimeTrackerService service = newService(backend);
+        ReflectionTestUtils.setField(service, "prefetchDepth", 0);
+
+        // The page is held at the backend while a record is created
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<TimeRecord>> read = executor.submit(() -> service.getRecordsByEmail(EMAIL, 0, 10));
+            awaitCalls(backend, 1);
+            CountDownLatch held = backend.release;
+            backend.total = 6;
+            service.invalidateCacheForEmail(EMAIL);
+            backend.release = new CountDownLatch(0);
+            held.countDown();
+            assertThat(read.get(5, TimeUnit.SECONDS)).hasSize(5);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The page read before the new record is not served as fresh
+        assertThat(service.getRecordsByEmail(EMAIL, 0, 10)).hasSize(6);
+        assertThat(backend.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void totalsAreKeptForAFewTimezonesPerEmail() {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        backend.total = 5;
+        TimeTrackerService service = newService(backend);
+
+        for (int hours = 0; hours < 8; hours++) {
+            ZoneId zone = ZoneId.of("+0" + hours + ":00");
+            assertThat(service.summarizeRecordsByEmail(EMAIL, zone, ChronoUnit.DAYS).totalHours()).isEqualTo(40.0);
+        }
+        @SuppressWarnings("unchecked")
+        Cache<String, Map<ZoneId, ?>> totalsByEmail =
+                (Cache<String, Map<ZoneId, ?>>) ReflectionTestUtils.getField(service, "totalsByEmail");
+        assertThat(totalsByEmail.getIfPresent(EMAIL)).hasSize(4);
+    }
+
+    @Test
+    void restartedServiceStartsWithTheStoredPagesUntilInvalidated(@TempDir Path directory) {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        TimeTrackerService service = newService(backend, newPageStore(directory));
+        service.getRecordsByEmail(EMAIL, 0, 10);
+        assertThat(backend.calls.get()).isEqualTo(1);
+
+        // A new instance serves the page without calling the backend
+        TimeTrackerService restarted = newService(backend, newPageStore(directory));
+        assertThat(restarted.getRecordsByEmail(EMAIL, 0, 10)).hasSize(10);
+        assertThat(backend.calls.get()).isEqualTo(1);
+
+        // Invalidating the email also empties the store for the next instance
+        restarted.invalidateCacheForEmail(EMAIL);
+        newService(backend, newPageStore(directory)).getRecordsByEmail(EMAIL, 0, 10);
+        assertThat(backend.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void storedPagesPastTheRefreshWindowAreOnlyAFallback(@TempDir Path directory) throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        List<TimeRecord> stored = newService(backend, newPageStore(directory)).getRecordsByEmail(EMAIL, 0, 10);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofMinutes(50))));
+            }
+        }
+
+        // Older than the refresh window of a minute, the page is not served as fresh, only
+        // stale while the backend fails, for the ten minutes left of its hour
+        TimeTrackerService restarted = newService(backend, newPageStore(directory));
+        backend.failing = true;
+        RecordPage fallback = restarted.getRecordsPage(EMAIL, 0, 10);
+        assertThat(fallback.stale()).isTrue();
+        assertThat(fallback.records()).hasSameSizeAs(stored);
+        @SuppressWarnings("unchecked")
+        Cache<RecordsCacheKey, List<TimeRecord>> lastKnownPages =
+                (Cache<RecordsCacheKey, List<TimeRecord>>) ReflectionTestUtils.getField(restarted, "lastKnownPages");
+        assertThat(lastKnownPages.policy().expireVariably().orElseThrow()
+                .getExpiresAfter(new RecordsCacheKey(EMAIL, 0, 10)).orElseThrow())
+                .isLessThanOrEqualTo(Duration.ofMinutes(10));
+        backend.failing = false;
+        assertThat(restarted.getRecordsPage(EMAIL, 0, 10).stale()).isFalse();
+        assertThat(backend.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void storedPageIsReloadedWhenItsRefreshWindowEndsAfterTheRestart(@TempDir Path directory) throws Exception {
+        StubRestTemplate backend = new StubRestTemplate(new CountDownLatch(0));
+        newService(backend, newPageStore(directory)).getRecordsByEmail(EMAIL, 0, 10);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofSeconds(59))));
+            }
+        }
+
+        // Served fresh from the store, the page is one second from the end of its minute
+        TimeTrackerService restarted = newService(backend, newPageStore(directory));
+        assertThat(restarted.getRecordsPage(EMAIL, 0, 10).stale()).isFalse();
+        assertThat(backend.calls.get()).isEqualTo(1);
+
+        // A read past that second reloads it, rather than a whole minute after the restart
+        Thread.sleep(1500);
+        restarted.getRecordsPage(EMAIL, 0, 10);
+        awaitCalls(backend, 2);
+    }
+
+    private static RecordPageStore newPageStore(Path directory) {
+        return new RecordPageStore(true, directory.toString(), DataSize.ofMegabytes(1),
+                new SyncTaskExecutor(), new SimpleMeterRegistry());
+    }
+
+    private static TimeTrackerService newService(RestTemplate restTemplate, RecordPageStore pageStore) {
+        return new TimeTrackerService(restTemplate, new SimpleMeterRegistry(), new SyncTaskExecutor(), pageStore,
+                DataSize.ofMegabytes(64), DataSize.ofMegabytes(16), Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofHours(1), new ExportExecutors(4), new SummaryExecutor(4));
+    }
+
+    private static void awaitCalls(StubRestTemplate backend, int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (backend.calls.get() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(backend.calls.get()).isEqualTo(calls);
+    }
+
+    private static TimeTrackerService newService(RestTemplate restTemplate) {
+        return newService(restTemplate, Duration.ofMinutes(1));
+    }
+
+    private static TimeTrackerService newService(RestTemplate restTemplate, Duration refreshAfterWrite) {
+        TimeTrackerService service = new TimeTrackerService(
+                restTemplate, new SimpleMeterRegistry(), new SimpleAsyncTaskExecutor(), RecordPageStore.disabled(),
+                DataSize.ofMegabytes(64), DataSize.ofMegabytes(16),
+                Duration.ofMinutes(10), refreshAfterWrite, Duration.ofHours(1), new ExportExecutors(4), new SummaryExecutor(4));
+        ReflectionTestUtils.setField(service, "prefetchDepth", 1);
+        ReflectionTestUtils.setField(service, "prefetchMaxInFlight", 16);
+        ReflectionTestUtils.setField(service, "summaryPageSize", 10);
+        ReflectionTestUtils.setField(service, "summaryParallelism", 4);
+        return service;
+    }
+
+    /**
+     * Backend stand-in serving a dataset of records for one email, which counts
+     * calls and blocks each one until released.
+     */
+    private static class StubRestTemplate extends RestTemplate {
+        final AtomicInteger calls = new AtomicInteger();
+        final List<String> urls = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch release;
+        volatile int total = Integer.MAX_VALUE;
+        volatile boolean failing;
+        volatile Error error;
+
+        StubRestTemplate(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public <T> T execute(String url, HttpMethod method, RequestCallback requestCallback,
+                             ResponseExtractor<T> responseExtractor, Object... uriVariables) {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new ResourceAccessException("backend down");
+            }
+            if (error != null) {
+                throw error;
+            }
+            url = UriComponentsBuilder.fromUriString(url).buildAndExpand(uriVariables).toUriString();
+            urls.add(url);
+            // The records are those held when the call arrives, however long it is then held
+            MultiValueMap<String, String> query = UriComponentsBuilder.fromUriString(url).build().getQueryParams();
+            int offset = Integer.parseInt(query.getFirst("offset"));
+            int length = Integer.parseInt(query.getFirst("length"));
+            int end = (int) Math.min((long) offset + length, total);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringJoiner records = new StringJoiner(",", "[", "]");
+            for (int i = offset; i < end; i++) {
+                records.add("{\"email\":\"" + EMAIL + "\",\"start\":\"2024-01-01T08:00:00.000+0000\","
+                        + "\"end\":\"2024-01-01T16:00:00.000+0000\"}");
+            }
+            try {
+                return responseExtractor.extractData(
+                        new MockClientHttpResponse(records.toString().getBytes(StandardCharsets.UTF_8), HttpStatus.OK));
+            } catch (IOException e) {
+                throw new ResourceAccessException(e.getMessage(), e);
+            }
+        }
+    }
+}
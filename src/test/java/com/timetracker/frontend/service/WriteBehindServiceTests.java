@@ -0,0 +1,159 @@
+package com.timetracker.frontend.service;
+
+import com.timetracker.frontend.model.TimeRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindServiceTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsAreRetriedUntilTheBackendRecovers() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        backend.failures = 3;
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WriteBehindService service = newService(backend, registry);
+        service.start();
+        try {
+            service.submit(record("alice@example.com"));
+            service.submit(record("bob@example.com"));
+
+            awaitPending(service, 0);
+            assertThat(backend.emails).containsExactly("alice@example.com", "bob@example.com");
+            assertThat(registry.get("timetracker.journal.retries").counter().count()).isEqualTo(3);
+            assertThat(registry.get("timetracker.journal.drain.latency").timer().count()).isEqualTo(2);
+            assertThat(registry.get("timetracker.journal.depth").gauge().value()).isZero();
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void recordsJournaledDuringAnOutageAreSentAfterRestart() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        backend.failures = Integer.MAX_VALUE;
+        WriteBehindService service = newService(backend, new SimpleMeterRegistry());
+        service.start();
+        service.submit(record("alice@example.com"));
+        service.submit(record("bob@example.com"));
+        service.stop();
+        assertThat(backend.emails).isEmpty();
+
+        backend.failures = 0;
+        WriteBehindService restarted = newService(backend, new SimpleMeterRegistry());
+        restarted.start();
+        try {
+            awaitPending(restarted, 0);
+            assertThat(backend.emails).containsExactly("alice@example.com", "bob@example.com");
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void refusedRecordsAreDroppedWithoutBlockingTheJournal() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        backend.refusedEmail = "bad@example.com";
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WriteBehindService service = newService(backend, registry);
+        service.start();
+        try {
+            service.submit(record("bad@example.com"));
+            service.submit(record("alice@example.com"));
+
+            awaitPending(service, 0);
+            assertThat(backend.emails).containsExactly("alice@example.com");
+            assertThat(registry.get("timetracker.journal.rejected").counter().count()).isEqualTo(1);
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void recordsFailingOutsideTheExchangeAreDroppedWithoutBlockingTheJournal() throws Exception {
+        StubRestTemplate backend = new StubRestTemplate();
+        backend.unsendableEmail = "broken@example.com";
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        WriteBehindService service = newService(backend, registry);
+        service.start();
+        try {
+            service.submit(record("broken@example.com"));
+            service.submit(record("alice@example.com"));
+
+            awaitPending(service, 0);
+            assertThat(backend.emails).containsExactly("alice@example.com");
+            assertThat(registry.get("timetracker.journal.rejected").counter().count()).isEqualTo(1);
+        } finally {
+            service.stop();
+        }
+    }
+
+    private WriteBehindService newService(RestTemplate restTemplate, SimpleMeterRegistry registry) {
+        TimeTrackerService timeTrackerService = new TimeTrackerService(
+                restTemplate, registry, new SyncTaskExecutor(), RecordPageStore.disabled(), DataSize.ofMegabytes(64), DataSize.ofMegabytes(16),
+                Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofHours(1), new ExportExecutors(4), new SummaryExecutor(4));
+        return new WriteBehindService(timeTrackerService, registry, true,
+                directory.resolve("records.journal").toString(), 10, DataSize.ofMegabytes(1), Duration.ofMillis(10), Duration.ofMillis(40));
+    }
+
+    private static void awaitPending(WriteBehindService service, long pending) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getPending() != pending && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.getPending()).isEqualTo(pending);
+    }
+
+    private static TimeRecord record(String email) {
+        ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+        return new TimeRecord(email, start, start.plusHours(8));
+    }
+
+    /**
+     * Backend stand-in failing a number of posts before accepting them, and refusing one email.
+     */
+    private static class StubRestTemplate extends RestTemplate {
+        final List<String> emails = new CopyOnWriteArrayList<>();
+        volatile int failures;
+        volatile String refusedEmail;
+        volatile String unsendableEmail;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T postForObject(String url, Object request, Class<T> responseType, Object... uriVariables) {
+            String email = ((MultiValueMap<String, String>) request).getFirst("email");
+            if (email.equals(refusedEmail)) {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }
+            if (email.equals(unsendableEmail)) {
+                throw new IllegalStateException("cannot encode the record");
+            }
+            if (failures > 0) {
+                failures--;
+                throw new ResourceAccessException("backend down");
+            }
+            emails.add(email);
+            return null;
+        }
+    }
+}
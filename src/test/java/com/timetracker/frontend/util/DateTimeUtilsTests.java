@@ -0,0 +1,57 @@
+package com.timetracker.frontend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class DateTimeUtilsTests {
+
+    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("yyyy-MM-dd - HH:mm");
+
+    @Test
+    void appendMatchesFormatterAcrossZonesAndTransitions() {
+        StringBuilder builder = new StringBuilder();
+        ZonedDateTime time = ZonedDateTime.of(2024, 3, 30, 23, 59, 59, 999_000_000, ZoneOffset.UTC);
+        for (String timezone : new String[]{"+00:00", "-05:30", "+14:00", "Europe/Rome", "America/St_Johns"}) {
+            ZoneId zoneId = DateTimeUtils.resolveZoneId(timezone);
+            for (int hour = 0; hour < 48; hour++) {
+                ZonedDateTime instant = time.plusHours(hour);
+                builder.setLength(0);
+                DateTimeUtils.appendZonedDateTime(builder, instant, zoneId);
+                assertThat(builder.toString()).isEqualTo(instant.withZoneSameInstant(zoneId).format(DISPLAY));
+
+                builder.setLength(0);
+                DateTimeUtils.appendEpochMilli(builder, instant.toInstant().toEpochMilli(), zoneId);
+                assertThat(builder.toString()).isEqualTo(instant.withZoneSameInstant(zoneId).format(DISPLAY));
+            }
+        }
+    }
+
+    @Test
+    void fixedLayoutParseMatchesFormatter() {
+        DateTimeFormatter backend = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        for (String text : new String[]{"2024-01-31T17:05:09.123+0100", "1999-12-31T23:59:59.999-0930",
+                "2024-02-30T08:00:00.000+0000", "2024-06-01T24:00:00.000+0000", "2024-06-01T08:00:00.000+1400"}) {
+            assertThat(DateTimeUtils.parseStringToZonedDateTime(text)).isEqualTo(ZonedDateTime.parse(text, backend));
+        }
+        for (String text : new String[]{"2024-01-31T17:05:09.123+01:00", "2024-13-01T08:00:00.000+0000",
+                "2024-01-0xT08:00:00.000+0000", "2024-01-01T08:00:00.000+1900"}) {
+            assertThatExceptionOfType(DateTimeParseException.class)
+                    .isThrownBy(() -> DateTimeUtils.parseStringToZonedDateTime(text));
+        }
+    }
+
+    @Test
+    void resolvedZonesAreReusedAndInvalidNamesRejected() {
+        assertThat(DateTimeUtils.resolveZoneId("Europe/Rome")).isSameAs(DateTimeUtils.resolveZoneId("Europe/Rome"));
+        assertThatExceptionOfType(DateTimeException.class).isThrownBy(() -> DateTimeUtils.resolveZoneId("Mars/Olympus"));
+    }
+}